@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import ru.rtc.warehouse.user.model.Role;
 import ru.rtc.warehouse.user.model.User;
 
 import java.util.Collection;
@@ -16,6 +17,20 @@ public class UserDetailsImpl implements UserDetails {
 
 	private final User user;
 
+	/**
+	 * Пользователь, восстановленный из claims access-токена без обращения к БД: заполнены только
+	 * id, email, имя и роль, пароль отсутствует.
+	 */
+	public static UserDetailsImpl fromClaims(Long userId, String email, String name, String roleCode) {
+		User user = User.builder()
+				.id(userId)
+				.email(email)
+				.name(name)
+				.role(Role.builder().code(Role.RoleCode.from(roleCode)).build())
+				.build();
+		return new UserDetailsImpl(user);
+	}
+
 	// Временное изменение для обхода 403
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
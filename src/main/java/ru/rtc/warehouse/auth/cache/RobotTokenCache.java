@@ -0,0 +1,106 @@
+package ru.rtc.warehouse.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.auth.events.RobotTokensRevokedEvent;
+import ru.rtc.warehouse.auth.util.TokenDigest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш проверенных токенов роботов: SHA-256 токена → принципал (код робота, роли, срок действия).
+ *
+ * <p>Попадание в кэш заменяет разбор JWT и запрос к robot_tokens. Отзыв токена после коммита
+ * удаляет запись локально и рассылается остальным узлам через Redis pub/sub ({@link #CHANNEL});
+ * TTL записи ограничивает устаревание, если сообщение узлом потеряно.</p>
+ */
+@Slf4j
+@Component
+public class RobotTokenCache implements MessageListener {
+
+	public static final String CHANNEL = "auth:robot_token_revoked";
+
+	private final StringRedisTemplate redisTemplate;
+	private final Cache<String, RobotPrincipal> cache;
+	// растёт при каждом отзыве: проверка, начатая до отзыва, не возвращает токен в кэш
+	private final AtomicLong revocations = new AtomicLong();
+
+	public RobotTokenCache(StringRedisTemplate redisTemplate,
+						   @Value("${security.robot-token-cache.size:10000}") long maximumSize,
+						   @Value("${security.robot-token-cache.ttl:PT10M}") Duration ttl) {
+		this.redisTemplate = redisTemplate;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.build();
+	}
+
+	/**
+	 * Принципал по токену; при промахе вызывается {@code loader} (разбор JWT и проверка в БД),
+	 * {@code null} от загрузчика не кэшируется. Загрузчик вызывается вне mapping-функции Caffeine.
+	 */
+	public RobotPrincipal get(String token, Supplier<RobotPrincipal> loader) {
+		String digest = TokenDigest.sha256Hex(token);
+		RobotPrincipal principal = cache.getIfPresent(digest);
+		if (principal != null && principal.isExpired()) {
+			cache.invalidate(digest);
+			return null;
+		}
+		if (principal == null) {
+			long generation = revocations.get();
+			principal = loader.get();
+			if (principal != null) {
+				cache.put(digest, principal);
+				if (revocations.get() != generation) {
+					cache.invalidate(digest);
+				}
+			}
+		}
+		return principal;
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onTokensRevoked(RobotTokensRevokedEvent event) {
+		for (String token : event.getTokens()) {
+			String digest = TokenDigest.sha256Hex(token);
+			revocations.incrementAndGet();
+			cache.invalidate(digest);
+			try {
+				redisTemplate.convertAndSend(CHANNEL, digest);
+			} catch (Exception e) {
+				log.warn("Failed to broadcast robot token revocation: {}", e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		revocations.incrementAndGet();
+		cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Проверенный токен робота; {@code expiresAt == null} — бессрочный.
+	 */
+	public record RobotPrincipal(String subject, Collection<? extends GrantedAuthority> authorities,
+								 Instant expiresAt) {
+
+		boolean isExpired() {
+			return expiresAt != null && expiresAt.isBefore(Instant.now());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package ru.rtc.warehouse.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.user.events.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Короткоживущий кэш email → UserDetails для режима {@code security.jwt.user-auth-mode=cached}.
+ *
+ * <p>Изменение пользователя или роли сбрасывает записи после коммита ({@link UserChangedEvent});
+ * на других узлах запись доживает свой TTL. Момент изменения запоминается на {@code claims-max-age}:
+ * в режиме claims токен, выданный до изменения, не принимается на веру.</p>
+ */
+@Component
+public class UserDetailsCache {
+
+	private final Cache<String, UserDetails> cache;
+	// email → момент последнего изменения пользователя
+	private final Cache<String, Instant> changes;
+	// изменение роли или удаление пользователя затрагивает всех
+	private volatile Instant allChangedAt = Instant.EPOCH;
+	// растёт при каждом сбросе: загрузка, начатая до сброса, не оставляет в кэше устаревшего пользователя
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public UserDetailsCache(@Value("${security.user-cache.size:10000}") long maximumSize,
+							@Value("${security.user-cache.ttl:PT30S}") Duration ttl,
+							@Value("${security.jwt.claims-max-age:PT5M}") Duration claimsMaxAge) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.build();
+		this.changes = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(claimsMaxAge)
+				.build();
+	}
+
+	/**
+	 * Пользователь по email; загрузка идёт вне mapping-функции Caffeine.
+	 */
+	public UserDetails get(String email, Function<String, UserDetails> loader) {
+		UserDetails cached = cache.getIfPresent(email);
+		if (cached != null) {
+			return cached;
+		}
+		long generation = invalidations.get();
+		UserDetails loaded = loader.apply(email);
+		cache.put(email, loaded);
+		if (invalidations.get() != generation) {
+			cache.invalidate(email);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Изменялся ли пользователь (или роли) на этом узле после {@code issuedAt}.
+	 */
+	public boolean changedSince(String email, Instant issuedAt) {
+		if (!allChangedAt.isBefore(issuedAt)) {
+			return true;
+		}
+		Instant changedAt = changes.getIfPresent(email);
+		return changedAt != null && !changedAt.isBefore(issuedAt);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onUserChanged(UserChangedEvent event) {
+		Instant now = Instant.now();
+		invalidations.incrementAndGet();
+		if (event.getEmail() == null) {
+			allChangedAt = now;
+			cache.invalidateAll();
+		} else {
+			changes.put(event.getEmail(), now);
+			cache.invalidate(event.getEmail());
+		}
+	}
+}
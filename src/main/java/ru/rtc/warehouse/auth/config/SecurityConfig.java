@@ -1,6 +1,8 @@
 package ru.rtc.warehouse.auth.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,11 +19,16 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import ru.rtc.warehouse.auth.UserDetailsServiceImpl;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache;
+import ru.rtc.warehouse.auth.cache.UserDetailsCache;
 import ru.rtc.warehouse.auth.repository.RobotTokenRepository;
 import ru.rtc.warehouse.auth.util.JwtAuthenticationFilter;
 import ru.rtc.warehouse.auth.util.JwtUtil;
 import ru.rtc.warehouse.auth.util.RobotTokenAuthenticationFilter;
+import ru.rtc.warehouse.robot.admission.RobotAdmissionControl;
+import ru.rtc.warehouse.robot.admission.RobotAdmissionFilter;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -32,15 +39,29 @@ public class SecurityConfig {
 	private final JwtUtil jwtUtil;
 	private final UserDetailsServiceImpl customUserDetailsService;
 	private final RobotTokenRepository robotTokenRepository;
+	private final RobotTokenCache robotTokenCache;
+	private final UserDetailsCache userDetailsCache;
+
+	@Value("${security.jwt.user-auth-mode:cached}")
+	private JwtAuthenticationFilter.UserAuthMode userAuthMode;
+	@Value("${security.jwt.claims-max-age:PT5M}")
+	private Duration claimsMaxAge;
+	private final RobotAdmissionControl robotAdmissionControl;
+	private final ObjectMapper objectMapper;
 
 	@Bean
 	public JwtAuthenticationFilter jwtAuthenticationFilter() {
-		return new JwtAuthenticationFilter(jwtUtil, customUserDetailsService);
+		return new JwtAuthenticationFilter(jwtUtil, customUserDetailsService, userDetailsCache, userAuthMode,
+				claimsMaxAge);
 	}
 	@Bean
     public RobotTokenAuthenticationFilter robotTokenAuthenticationFilter() {
-        return new RobotTokenAuthenticationFilter(jwtUtil, robotTokenRepository);
+        return new RobotTokenAuthenticationFilter(jwtUtil, robotTokenRepository, robotTokenCache);
     }
+	@Bean
+	public RobotAdmissionFilter robotAdmissionFilter() {
+		return new RobotAdmissionFilter(robotAdmissionControl, objectMapper);
+	}
 
 	@Bean
 	public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
@@ -77,6 +98,7 @@ public class SecurityConfig {
 						.requestMatchers("/swagger-ui/**").permitAll()
 						.requestMatchers("/v3/swagger-ui/**").permitAll()
 						.requestMatchers("/api/auth/**").permitAll()
+						.requestMatchers("/actuator/health").permitAll()
 						.requestMatchers("/ws", "/ws/**", "/api/ws/dashboard", "/api/ws/dashboard/**", "/ws/info/**").permitAll()
 						.anyRequest().authenticated()
 				)
@@ -84,6 +106,7 @@ public class SecurityConfig {
 
 		http.addFilterBefore(robotTokenAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 		http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+		http.addFilterAfter(robotAdmissionFilter(), RobotTokenAuthenticationFilter.class);
 		return http.build();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package ru.rtc.warehouse.auth.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Событие: токены робота отозваны (удалены из robot_tokens вместе с роботом).
+ */
+@Getter
+public class RobotTokensRevokedEvent extends ApplicationEvent {
+	private final List<String> tokens;
+
+	public RobotTokensRevokedEvent(Object source, List<String> tokens) {
+		super(source);
+		this.tokens = tokens;
+	}
+}
@@ -6,8 +6,15 @@ import ru.rtc.warehouse.user.model.User;
 
 import java.time.Instant;
 
+/**
+ * Refresh-токен пользователя. Хранится только SHA-256 токена ({@code token_hash}); сам токен
+ * отдаётся клиенту один раз и в БД не попадает.
+ */
 @Entity
-@Table(name = "refresh_tokens", indexes = @Index(columnList = "token"))
+@Table(name = "refresh_tokens", indexes = {
+		@Index(name = "uq_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+		@Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,8 +26,8 @@ public class RefreshToken {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
-	@Column(nullable = false, unique = true, length = 512)
-	private String token;
+	@Column(name = "token_hash", nullable = false, length = 64)
+	private String tokenHash;
 
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user_id", nullable = false)
@@ -1,16 +1,62 @@
 package ru.rtc.warehouse.auth.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.auth.model.RefreshToken;
 import ru.rtc.warehouse.user.model.User;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-	Optional<RefreshToken> findByToken(String token);
+	Optional<RefreshToken> findByTokenHash(String tokenHash);
 	List<RefreshToken> findAllByUser(User user);
-	void deleteAllByUser(User user);
-}
\ No newline at end of file
+
+	@Modifying
+	@Query("DELETE FROM RefreshToken r WHERE r.user = :user")
+	int deleteAllByUser(@Param("user") User user);
+
+	/**
+	 * Ротация одним запросом: удаляет действующий токен {@code oldHash} и записывает на его место
+	 * {@code newHash} того же пользователя. Пусто — токен неизвестен, отозван, истёк или уже
+	 * использован параллельным запросом.
+	 */
+	@Query(value = """
+			WITH old AS (
+			    DELETE FROM refresh_tokens
+			    WHERE token_hash = :oldHash AND revoked = false AND expiry_date > :now
+			    RETURNING user_id
+			)
+			INSERT INTO refresh_tokens (token_hash, user_id, expiry_date, revoked)
+			SELECT :newHash, user_id, :expiry, false FROM old
+			RETURNING user_id
+			""", nativeQuery = true)
+	Optional<Long> rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash,
+						  @Param("now") Instant now, @Param("expiry") Instant expiry);
+
+	@Modifying
+	@Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.tokenHash = :tokenHash")
+	int revokeByTokenHash(@Param("tokenHash") String tokenHash);
+
+	/**
+	 * Удаляет не более {@code limit} истёкших или отозванных токенов; вызывающий повторяет,
+	 * пока удаляется полная порция.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = """
+			DELETE FROM refresh_tokens
+			WHERE id IN (
+			    SELECT id FROM refresh_tokens
+			    WHERE expiry_date < :now OR revoked = true
+			    LIMIT :limit
+			)
+			""", nativeQuery = true)
+	int deleteExpiredChunk(@Param("now") Instant now, @Param("limit") int limit);
+}
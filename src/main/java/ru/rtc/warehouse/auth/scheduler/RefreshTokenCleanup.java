@@ -0,0 +1,45 @@
+package ru.rtc.warehouse.auth.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.auth.repository.RefreshTokenRepository;
+
+import java.time.Instant;
+
+/**
+ * Удаляет истёкшие и отозванные refresh-токены порциями по {@code security.refresh-token-cleanup.chunk-size}:
+ * каждая порция — отдельная короткая транзакция, чтобы не держать блокировки на всей таблице.
+ */
+@Slf4j
+@Component
+public class RefreshTokenCleanup {
+
+	private final RefreshTokenRepository refreshTokenRepository;
+	private final int chunkSize;
+
+	public RefreshTokenCleanup(RefreshTokenRepository refreshTokenRepository,
+							   @Value("${security.refresh-token-cleanup.chunk-size:1000}") int chunkSize) {
+		this.refreshTokenRepository = refreshTokenRepository;
+		this.chunkSize = chunkSize;
+	}
+
+	@Scheduled(fixedDelayString = "${security.refresh-token-cleanup.interval-millis:3600000}")
+	public void purgeExpired() {
+		Instant now = Instant.now();
+		long total = 0;
+		try {
+			int removed;
+			do {
+				removed = refreshTokenRepository.deleteExpiredChunk(now, chunkSize);
+				total += removed;
+			} while (removed == chunkSize);
+		} catch (Exception e) {
+			log.warn("Failed to purge refresh tokens: {}", e.getMessage());
+		}
+		if (total > 0) {
+			log.debug("Removed {} expired or revoked refresh token(s)", total);
+		}
+	}
+}
@@ -14,10 +14,12 @@ import ru.rtc.warehouse.auth.controller.dto.response.AuthResponse;
 import ru.rtc.warehouse.auth.model.RefreshToken;
 import ru.rtc.warehouse.auth.repository.RefreshTokenRepository;
 import ru.rtc.warehouse.auth.util.JwtUtil;
+import ru.rtc.warehouse.auth.util.TokenDigest;
 import ru.rtc.warehouse.user.controller.dto.request.UserCreateRequest;
 import ru.rtc.warehouse.user.mapper.UserMapper;
 import ru.rtc.warehouse.user.model.Role.RoleCode;
 import ru.rtc.warehouse.user.model.User;
+import ru.rtc.warehouse.user.service.UserEntityService;
 import ru.rtc.warehouse.user.service.UserService;
 import ru.rtc.warehouse.user.service.dto.UserDTO;
 
@@ -34,6 +36,7 @@ public class AuthService {
 	private final AuthenticationManager authenticationManager;
 	private final JwtUtil jwtUtil;
 	private final UserService userService;
+	private final UserEntityService userEntityService;
 	private final UserMapper userMapper;
 	private final RefreshTokenRepository refreshTokenRepository;
 	private final PasswordEncoder passwordEncoder;
@@ -53,11 +56,11 @@ public class AuthService {
 		refreshTokenRepository.deleteAllByUser(user);
 
 		String accessToken = createAccessToken(user);
-		RefreshToken refreshToken = createAndSaveRefreshToken(user);
+		String refreshToken = createAndSaveRefreshToken(user);
 
 		return AuthResponse.builder()
 				.accessToken(accessToken)
-				.refreshToken(refreshToken.getToken())
+				.refreshToken(refreshToken)
 				.accessTokenExpiresInSeconds(jwtUtil.getAccessTokenValiditySeconds())
 				.build();
 	}
@@ -70,46 +73,52 @@ public class AuthService {
 		return jwtUtil.generateAccessToken(user.getEmail(), claims);
 	}
 
-	private RefreshToken createAndSaveRefreshToken(User user) {
-		String token = UUID.randomUUID() + "-" + UUID.randomUUID();
-		Instant expiry = Instant.now().plusSeconds(refreshTokenValiditySeconds);
+	/**
+	 * Создаёт refresh-токен и сохраняет его SHA-256; возвращает сам токен для ответа клиенту.
+	 */
+	private String createAndSaveRefreshToken(User user) {
+		String token = newRefreshToken();
 		RefreshToken rt = RefreshToken.builder()
-				.token(token)
+				.tokenHash(TokenDigest.sha256Hex(token))
 				.user(user)
-				.expiryDate(expiry)
+				.expiryDate(refreshTokenExpiry())
 				.revoked(false)
 				.build();
-		return refreshTokenRepository.save(rt);
+		refreshTokenRepository.save(rt);
+		return token;
 	}
 
-	@Transactional
-	public AuthResponse refreshAccessToken(String refreshTokenString) {
-		RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenString)
-				.orElseThrow(() -> new RuntimeException("Invalid refresh token"));
-
-		if (refreshToken.isRevoked() || refreshToken.getExpiryDate().isBefore(Instant.now())) {
-			throw new RuntimeException("Refresh token expired or revoked");
-		}
+	private static String newRefreshToken() {
+		return UUID.randomUUID() + "-" + UUID.randomUUID();
+	}
 
-		User user = refreshToken.getUser();
+	private Instant refreshTokenExpiry() {
+		return Instant.now().plusSeconds(refreshTokenValiditySeconds);
+	}
 
-		refreshTokenRepository.deleteAllByUser(user);
-		RefreshToken newRefresh = createAndSaveRefreshToken(user);
+	@Transactional
+	public AuthResponse refreshAccessToken(String refreshTokenString) {
+		String newRefresh = newRefreshToken();
+		// старый токен удаляется и заменяется новым одним запросом: повторное использование
+		// и параллельная ротация того же токена получают пустой результат
+		Long userId = refreshTokenRepository.rotate(
+						TokenDigest.sha256Hex(refreshTokenString), TokenDigest.sha256Hex(newRefresh),
+						Instant.now(), refreshTokenExpiry())
+				.orElseThrow(() -> new RuntimeException("Invalid, expired or revoked refresh token"));
+
+		User user = userEntityService.findById(userId);
 		String accessToken = createAccessToken(user);
 
 		return AuthResponse.builder()
 				.accessToken(accessToken)
-				.refreshToken(newRefresh.getToken())
+				.refreshToken(newRefresh)
 				.accessTokenExpiresInSeconds(jwtUtil.getAccessTokenValiditySeconds())
 				.build();
 	}
 
 	@Transactional
 	public void logout(String refreshToken) {
-		refreshTokenRepository.findByToken(refreshToken).ifPresent(rt -> {
-			rt.setRevoked(true);
-			refreshTokenRepository.save(rt);
-		});
+		refreshTokenRepository.revokeByTokenHash(TokenDigest.sha256Hex(refreshToken));
 	}
 
 	@Transactional
@@ -137,11 +146,11 @@ public class AuthService {
 		User user = userMapper.toEntity(userDTO);
 
 		String accessToken = createAccessToken(user);
-		RefreshToken refreshToken = createAndSaveRefreshToken(user);
+		String refreshToken = createAndSaveRefreshToken(user);
 
 		return AuthResponse.builder()
 				.accessToken(accessToken)
-				.refreshToken(refreshToken.getToken())
+				.refreshToken(refreshToken)
 				.accessTokenExpiresInSeconds(jwtUtil.getAccessTokenValiditySeconds())
 				.build();
 	}
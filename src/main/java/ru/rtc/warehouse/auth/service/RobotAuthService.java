@@ -1,7 +1,10 @@
 package ru.rtc.warehouse.auth.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.rtc.warehouse.auth.events.RobotTokensRevokedEvent;
 import ru.rtc.warehouse.auth.model.RobotToken;
 import ru.rtc.warehouse.auth.repository.RobotTokenRepository;
 import ru.rtc.warehouse.auth.util.JwtUtil;
@@ -17,6 +20,7 @@ public class RobotAuthService {
 
 	private final JwtUtil jwtUtil;
 	private final RobotTokenRepository robotTokenRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	public RobotToken createRobotToken(Robot robot) {
 		Map<String, Object> claims = new HashMap<>();
@@ -33,4 +37,19 @@ public class RobotAuthService {
 
 		return robotTokenRepository.save(robotToken);
 	}
+
+	/**
+	 * Удаляет все токены робота; вызывается до удаления самого робота (robot_tokens ссылается на robots).
+	 * Кэши токенов всех узлов сбрасываются после коммита.
+	 */
+	@Transactional
+	public void deleteRobotTokens(Robot robot) {
+		List<RobotToken> tokens = robotTokenRepository.findAllByRobotId(robot.getId());
+		if (tokens.isEmpty()) {
+			return;
+		}
+		robotTokenRepository.deleteAll(tokens);
+		eventPublisher.publishEvent(new RobotTokensRevokedEvent(this,
+				tokens.stream().map(RobotToken::getToken).toList()));
+	}
 }
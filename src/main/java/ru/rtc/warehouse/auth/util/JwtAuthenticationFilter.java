@@ -1,5 +1,7 @@
 package ru.rtc.warehouse.auth.util;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,16 +14,40 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.rtc.warehouse.auth.UserDetailsImpl;
 import ru.rtc.warehouse.auth.UserDetailsServiceImpl;
+import ru.rtc.warehouse.auth.cache.UserDetailsCache;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
 
+/**
+ * Аутентификация пользователей по access-токену. Токен разбирается один раз; пользователь берётся
+ * из короткоживущего кэша (по умолчанию), из БД или из claims токена ({@link UserAuthMode#CLAIMS}).
+ */
 @Slf4j
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+	/**
+	 * CLAIMS — роли, userId и имя из токена без запроса к users, если токен выдан не раньше
+	 * {@code claimsMaxAge} назад и пользователь с тех пор не менялся (иначе — как CACHED);
+	 * CACHED — users через {@link UserDetailsCache}; DATABASE — users на каждый запрос.
+	 */
+	public enum UserAuthMode {
+		CLAIMS,
+		CACHED,
+		DATABASE
+	}
+
 	private final JwtUtil jwtUtil;
 	private final UserDetailsServiceImpl userDetailsService;
+	private final UserDetailsCache userDetailsCache;
+	private final UserAuthMode mode;
+	private final Duration claimsMaxAge;
 
 	// Временный фильтр для обхода 403
 	@Override
@@ -37,24 +63,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			}
 
 			if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-				if (!jwtUtil.isTokenExpired(token)) {
-					String username = jwtUtil.getSubject(token);
+				Claims claims = jwtUtil.parseAndValidate(token).getBody();
+				String username = claims.getSubject();
 
-					UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+				UserDetails userDetails = resolve(username, claims);
 
-					log.debug("Authenticating user: {} with authorities: {}", username, userDetails.getAuthorities());
+				log.debug("Authenticating user: {} with authorities: {}", username, userDetails.getAuthorities());
 
-					UsernamePasswordAuthenticationToken authToken =
-							new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-					authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-					SecurityContextHolder.getContext().setAuthentication(authToken);
-				} else {
-					log.warn("Token is expired");
-				}
+				UsernamePasswordAuthenticationToken authToken =
+						new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+				SecurityContextHolder.getContext().setAuthentication(authToken);
 			}
+		} catch (ExpiredJwtException ex) {
+			log.warn("Token is expired");
 		} catch (Exception ex) {
 			log.error("Cannot set user authentication: {}", ex.getMessage());
 		}
 		filterChain.doFilter(request, response);
 	}
-}
\ No newline at end of file
+
+	private UserDetails resolve(String username, Claims claims) {
+		return switch (mode) {
+			case CLAIMS -> fromClaims(username, claims);
+			case CACHED -> userDetailsCache.get(username, userDetailsService::loadUserByUsername);
+			case DATABASE -> userDetailsService.loadUserByUsername(username);
+		};
+	}
+
+	/**
+	 * Пользователь из claims access-токена. Токены без userId (например, токены роботов), старше
+	 * {@code claimsMaxAge} или выданные до изменения пользователя проверяются по users: пониженный
+	 * или удалённый пользователь не сохраняет роли до истечения токена.
+	 */
+	private UserDetails fromClaims(String username, Claims claims) {
+		Object userId = claims.get("userId");
+		if (!(userId instanceof Number id) || !(claims.get("roles") instanceof List<?> roles) || roles.isEmpty()
+				|| !trusted(username, claims.getIssuedAt())) {
+			return userDetailsCache.get(username, userDetailsService::loadUserByUsername);
+		}
+		return UserDetailsImpl.fromClaims(id.longValue(), username, claims.get("name", String.class),
+				roles.get(0).toString());
+	}
+
+	private boolean trusted(String username, Date issuedAt) {
+		if (issuedAt == null) {
+			return false;
+		}
+		Instant issued = issuedAt.toInstant();
+		return issued.plus(claimsMaxAge).isAfter(Instant.now()) && !userDetailsCache.changedSince(username, issued);
+	}
+}
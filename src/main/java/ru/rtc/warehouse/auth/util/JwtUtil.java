@@ -81,22 +81,28 @@ public class JwtUtil {
 
 	public Collection<? extends GrantedAuthority> extractAuthorities(String token) {
 		try {
-			Claims claims = parseAndValidate(token).getBody();
-			Object rolesClaim = claims.get("roles");
-
-			if (rolesClaim instanceof List<?>) {
-				List<String> roles = ((List<?>) rolesClaim).stream()
-						.map(Object::toString)
-						.toList();
-
-				return roles.stream()
-						.map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-						.collect(Collectors.toList());
-			}
-			return List.of();
+			return authoritiesOf(parseAndValidate(token).getBody());
 		} catch (JwtException e) {
 			return List.of();
 		}
 	}
 
+	/**
+	 * Роли из claim {@code roles} уже разобранного токена.
+	 */
+	public Collection<? extends GrantedAuthority> authoritiesOf(Claims claims) {
+		Object rolesClaim = claims.get("roles");
+
+		if (rolesClaim instanceof List<?>) {
+			List<String> roles = ((List<?>) rolesClaim).stream()
+					.map(Object::toString)
+					.toList();
+
+			return roles.stream()
+					.map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+					.collect(Collectors.toList());
+		}
+		return List.of();
+	}
+
 }
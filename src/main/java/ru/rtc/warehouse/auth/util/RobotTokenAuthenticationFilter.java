@@ -1,5 +1,6 @@
 package ru.rtc.warehouse.auth.util;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,21 +10,31 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache.RobotPrincipal;
 import ru.rtc.warehouse.auth.repository.RobotTokenRepository;
 
 import java.io.IOException;
-import java.util.Collection;
+import java.util.List;
 
+/**
+ * Аутентификация роботов по бессрочному токену из robot_tokens.
+ *
+ * <p>Проверенный токен кэшируется в {@link RobotTokenCache}: при попадании ни JWT, ни БД не трогаются,
+ * при промахе токен разбирается один раз и сверяется с robot_tokens.</p>
+ */
 @RequiredArgsConstructor
 @Slf4j
 public class RobotTokenAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String ROBOT_ROLE = "ROBOT";
+
     private final JwtUtil jwtUtil;
     private final RobotTokenRepository robotTokenRepository;
+    private final RobotTokenCache robotTokenCache;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -41,28 +52,12 @@ public class RobotTokenAuthenticationFilter extends OncePerRequestFilter {
 
 
             if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                try {
-                    jwtUtil.parseAndValidate(token);
-                } catch (Exception ex) {
-                    log.debug("Robot JWT parse/validate failed: {}", ex.getMessage());
-                    filterChain.doFilter(request, response);
-                    return;
+                RobotPrincipal principal = robotTokenCache.get(token, () -> load(token));
+                if (principal != null) {
+                    UsernamePasswordAuthenticationToken auth =
+                            new UsernamePasswordAuthenticationToken(principal.subject(), null, principal.authorities());
+                    SecurityContextHolder.getContext().setAuthentication(auth);
                 }
-
-               
-                robotTokenRepository.findByTokenAndRevokedFalse(token).ifPresent(rt -> {
-                    try {
-                        String subject = jwtUtil.getSubject(token);
-                        Collection<? extends GrantedAuthority> authorities = jwtUtil.extractAuthorities(token);
-
-                        UsernamePasswordAuthenticationToken auth =
-                                new UsernamePasswordAuthenticationToken(subject, null, authorities);
-                        SecurityContextHolder.getContext().setAuthentication(auth);
-                    } catch (Exception e) {
-                        log.warn("Failed to create auth for robot token: {}", e.getMessage());
-                    }
-                });
             }
         } catch (Exception e) {
             log.error("RobotTokenAuthenticationFilter failure: {}", e.getMessage());
@@ -70,4 +65,27 @@ public class RobotTokenAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Единственный разбор токена на промахе кэша; {@code null} — токен не робота, неверный или отозван.
+     * В robot_tokens сверяются только токены с ролью ROBOT: access-токены пользователей, которые
+     * никогда не кэшируются здесь, не порождают запрос к БД на каждый запрос.
+     */
+    private RobotPrincipal load(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseAndValidate(token).getBody();
+        } catch (Exception ex) {
+            log.debug("Robot JWT parse/validate failed: {}", ex.getMessage());
+            return null;
+        }
+        if (!(claims.get("roles") instanceof List<?> roles) || !roles.contains(ROBOT_ROLE)) {
+            return null;
+        }
+
+        return robotTokenRepository.findByTokenAndRevokedFalse(token)
+                .map(rt -> new RobotPrincipal(claims.getSubject(), jwtUtil.authoritiesOf(claims),
+                        claims.getExpiration() != null ? claims.getExpiration().toInstant() : null))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.rtc.warehouse.auth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 токена в hex (64 символа) — ключ для хранения и поиска токенов без их исходного значения.
+ * Совпадает с {@code encode(digest(token, 'sha256'), 'hex')} в Postgres (pgcrypto).
+ */
+public final class TokenDigest {
+
+	private TokenDigest() {
+	}
+
+	public static String sha256Hex(String token) {
+		try {
+			MessageDigest sha = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
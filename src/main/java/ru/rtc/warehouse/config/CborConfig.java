@@ -0,0 +1,24 @@
+package ru.rtc.warehouse.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR (application/cbor) для телеметрии роботов: те же DTO и валидация, что у JSON,
+ * но без повторяющихся текстовых имён полей и разбора текста.
+ */
+@Configuration
+public class CborConfig {
+
+    /**
+     * Конвертер строится из настроенного Spring Boot билдера, чтобы модули и настройки
+     * (java.time, неизвестные поля) совпадали с JSON.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
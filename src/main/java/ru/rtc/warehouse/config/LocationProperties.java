@@ -0,0 +1,18 @@
+package ru.rtc.warehouse.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.location")
+public class LocationProperties {
+    private long heartbeatMillis = 600_000;
+
+    // пороги статуса локации по времени с последнего скана: RECENT / MEDIUM / OLD
+    private long recentThresholdMinutes = 15;
+    private long mediumThresholdMinutes = 120;
+
+    private long publishWindowMillis = 250;
+}
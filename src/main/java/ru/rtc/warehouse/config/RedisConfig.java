@@ -7,9 +7,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.*;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache;
 import ru.rtc.warehouse.config.messaging.RedisMessageSubscriber;
 
 @Configuration
@@ -54,11 +56,14 @@ public class RedisConfig {
     @Bean
     public RedisMessageListenerContainer redisMessageListenerContainer(
             LettuceConnectionFactory factory,
-            RedisMessageSubscriber subscriber
+            RedisMessageSubscriber subscriber,
+            RobotTokenCache robotTokenCache
     ) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(factory);
         container.addMessageListener(subscriber, new PatternTopic("ws:robot_updates"));
+        // отзыв токенов роботов на других узлах
+        container.addMessageListener(robotTokenCache, new ChannelTopic(RobotTokenCache.CHANNEL));
         return container;
     }
 }
@@ -0,0 +1,38 @@
+package ru.rtc.warehouse.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты вызовов телеметрии роботов (/api/robots/data, /data/bulk, /status)
+ * и сброс нагрузки при росте очереди приёма.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.robot.admission")
+public class RobotAdmissionProperties {
+
+    private boolean enabled = true;
+
+    // кадры одного робота: устойчивая частота в секунду и допустимый всплеск
+    private double robotDataRate = 10;
+    private int robotDataBurst = 20;
+
+    // heartbeat-ы одного робота
+    private double robotStatusRate = 2;
+    private int robotStatusBurst = 5;
+
+    // все вызовы телеметрии роботов одного склада
+    private double warehouseRate = 500;
+    private int warehouseBurst = 1_000;
+
+    // при такой очереди приёма новые кадры получают 503 до её разбора
+    private long shedBacklog = 8_000;
+    private long shedRetryAfterSeconds = 2;
+
+    // корзина робота/склада удаляется после простоя
+    private Duration idleExpiry = Duration.ofMinutes(10);
+}
@@ -0,0 +1,106 @@
+package ru.rtc.warehouse.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки приёма кадров от роботов (POST /api/robots/data и /api/robots/data/bulk).
+ *
+ * <p>{@code sync} — кадр обрабатывается в потоке запроса (поведение по умолчанию),
+ * {@code async} — кадр пишется в локальный журнал на диске и обрабатывается в фоне.
+ * В обоих режимах кадры применяются однопоточными полосами, по одной на партицию (склад или зону).
+ * {@code stream} — кадр добавляется в Redis Stream своей партиции, обрабатывают его узлы,
+ * владеющие партицией (см. {@link Stream}).</p>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.robot.ingest")
+public class RobotIngestProperties {
+
+    private Mode mode = Mode.SYNC;
+
+    // число однопоточных полос приёма; кадры одной партиции применяются одной полосой по порядку
+    private int partitions = 8;
+    // очередь каждой полосы; при переполнении синхронный приём отвечает 503
+    private int partitionQueueCapacity = 1_000;
+    private PartitionBy partitionBy = PartitionBy.WAREHOUSE;
+
+    // сколько кадров может ожидать обработки; сверх лимита запрос получает 503
+    private int maxPendingFrames = 10_000;
+
+    // задержка повторной попытки после временной ошибки (удваивается до retryMaxDelayMillis)
+    private long retryDelayMillis = 500;
+    private long retryMaxDelayMillis = 30_000;
+    private int maxAttempts = 20;
+
+    // окно in-memory дедупликации кадров по frameId и срок хранения записей ingested_frames
+    private Duration dedupWindow = Duration.ofMinutes(10);
+    private long dedupMaxFrames = 200_000;
+    private Duration frameRetention = Duration.ofHours(24);
+
+    // сколько кадров bulk-запроса записывается одной транзакцией
+    private int bulkChunkSize = 200;
+
+    private Journal journal = new Journal();
+
+    private Stream stream = new Stream();
+
+    public enum Mode {
+        SYNC,
+        ASYNC,
+        STREAM
+    }
+
+    /**
+     * WAREHOUSE — все кадры склада в одной полосе; ZONE — партиция (склад, зона), больше параллелизма
+     * для крупных складов, но кадры робота, переходящего между зонами, могут применяться в разных полосах.
+     */
+    public enum PartitionBy {
+        WAREHOUSE,
+        ZONE
+    }
+
+    @Data
+    public static class Journal {
+        private String directory = System.getProperty("java.io.tmpdir") + "/warehouse-ingest";
+        private long segmentMaxBytes = 64L * 1024 * 1024;
+        // fsync после каждой записи: кадр подтверждается роботу только после попадания на диск
+        private boolean fsync = true;
+    }
+
+    /**
+     * Режим {@code stream}: кадры партиции (склада) лежат в Redis Stream {@code keyPrefix + partition},
+     * читаются группой {@code group}. Каждую партицию в один момент читает один узел — держатель
+     * аренды {@code leasePrefix + partition}, поэтому кадры склада по-прежнему применяются по порядку,
+     * а новые узлы забирают себе часть партиций.
+     */
+    @Data
+    public static class Stream {
+        private int partitions = 16;
+        private String keyPrefix = "robot:ingest:";
+        private String group = "ingest";
+        // имя потребителя в группе; по умолчанию — имя хоста
+        private String consumer;
+        // false — узел только принимает кадры (HTTP), но не обрабатывает их
+        private boolean consume = true;
+        private String leasePrefix = "robot:ingest:lease:";
+        private String nodesKey = "robot:ingest:nodes";
+        private Duration leaseTtl = Duration.ofSeconds(15);
+        private int batchSize = 100;
+        private Duration pollTimeout = Duration.ofSeconds(1);
+        // кадр другого потребителя группы, не подтверждённый дольше этого, забирает владелец партиции
+        private Duration claimIdle = Duration.ofSeconds(30);
+        private String deadLetterKey = "robot:ingest:dead";
+
+        public String key(int partition) {
+            return keyPrefix + partition;
+        }
+
+        public String lease(int partition) {
+            return leasePrefix + partition;
+        }
+    }
+}
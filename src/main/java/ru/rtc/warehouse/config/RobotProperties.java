@@ -10,6 +10,8 @@ import org.springframework.stereotype.Component;
 public class RobotProperties {
     private String recentScansKeyTemplate = "robot:%s:recent_scans";
     private String redisChannel = "ws:robot_updates";
+    // кодировка сообщений redisChannel: json или cbor; подписчик читает обе
+    private ChannelEncoding redisChannelEncoding = ChannelEncoding.JSON;
 
     private String wsGlobalTopic = "/topic/dashboard";
     private String wsRobotTopicPrefix = "/topic/dashboard/robot";
@@ -25,4 +27,11 @@ public class RobotProperties {
     private int recentScansLimit = 5;
     private long heartbeatMillis = 5000;
     private long recentScansTtlDays = 7L;
+    // период батчевой записи оперативного состояния роботов в таблицу robots
+    private long stateFlushMillis = 5000;
+
+    public enum ChannelEncoding {
+        JSON,
+        CBOR
+    }
 }
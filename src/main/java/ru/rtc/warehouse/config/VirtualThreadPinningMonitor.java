@@ -0,0 +1,127 @@
+package ru.rtc.warehouse.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Замер закреплений (pinning) виртуальных потоков через JFR-событие {@code jdk.VirtualThreadPinned}.
+ *
+ * <p>Закрепление — блокировка виртуального потока внутри synchronized/native-кода, при которой он держит
+ * платформенный поток-носитель. События группируются по месту (первый кадр кода приложения, иначе верхний
+ * кадр стека) и раз в {@code warehouse.threads.pinning-report-millis} пишутся в лог отчётом «топ мест».</p>
+ *
+ * <p>Поэтому кэши приложения загружают промахи (JDBC, Redis) не в mapping-функциях Caffeine
+ * ({@code Cache.get(key, fn)}, {@code asMap().compute}) — те выполняются под synchronized-блокировкой
+ * корзины ConcurrentHashMap, — а по схеме {@code getIfPresent} → загрузка → {@code put} со счётчиком
+ * сбросов; долгие критические секции с вводом-выводом защищаются {@code ReentrantLock}.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(prefix = "warehouse.threads", name = "pinning-monitor-enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "ru.rtc.warehouse.";
+    private static final int REPORT_TOP = 10;
+
+    private final Duration threshold;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${warehouse.threads.pinning-threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = site(event);
+        sites.computeIfAbsent(site, k -> new Site()).add(event.getDuration());
+        log.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.threads.pinning-report-millis:60000}")
+    public void report() {
+        if (sites.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Site>> top = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Site> e) -> e.getValue().totalNanos.sum()).reversed())
+                .limit(REPORT_TOP)
+                .toList();
+        StringBuilder report = new StringBuilder("Virtual thread pinning since last report:");
+        for (Map.Entry<String, Site> e : top) {
+            report.append(String.format("%n  %6d x, %8.1f ms total, %6.1f ms max  %s",
+                    e.getValue().count.sum(), e.getValue().totalNanos.sum() / 1e6,
+                    e.getValue().maxNanos / 1e6, e.getKey()));
+        }
+        sites.clear();
+        log.warn(report.toString());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "<no stack>";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame top = frames.get(0);
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return describe(top) + " <- " + describe(frame);
+            }
+        }
+        return describe(top);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static final class Site {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile long maxNanos;
+
+        private void add(Duration duration) {
+            long nanos = duration.toNanos();
+            count.increment();
+            totalNanos.add(nanos);
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package ru.rtc.warehouse.config.messaging;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
@@ -25,20 +24,20 @@ public class RedisMessageSubscriber implements MessageListener {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final RobotProperties robotProperties;
-    private final ObjectMapper objectMapper;
     private final RobotEntityAdapter robotEntityAdapter;
     private final StringRedisTemplate redisTemplate;
+    private final RobotChannelCodec channelCodec;
 
     private static final Duration ROBOT_WAREHOUSE_TTL = Duration.ofHours(1);
 
     @Override
     public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
-        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
         JsonNode root;
         try {
-            root = objectMapper.readTree(payload);
+            root = channelCodec.decode(message.getBody());
         } catch (Exception e) {
             log.warn("Failed to parse redis message to JSON, sending raw string.", e);
+            String payload = new String(message.getBody(), StandardCharsets.UTF_8);
             try {
                 messagingTemplate.convertAndSend(robotProperties.getWsGlobalTopic(), payload);
             } catch (Exception ex) {
@@ -49,13 +48,13 @@ public class RedisMessageSubscriber implements MessageListener {
 
         try {
             String type = root.path("type").asText("");
-            if ("location_update".equals(type)) {
+            if ("location_update".equals(type) || "location_batch_update".equals(type)) {
                 handleLocationUpdate(root);
                 // also forward to global (optional) so dashboard which listens on global sees it
                 try {
                     messagingTemplate.convertAndSend(robotProperties.getWsGlobalTopic(), root);
                 } catch (Exception ex) {
-                    log.warn("Failed to publish location_update to global topic: {}", ex.getMessage());
+                    log.warn("Failed to publish {} to global topic: {}", type, ex.getMessage());
                 }
                 return;
             }
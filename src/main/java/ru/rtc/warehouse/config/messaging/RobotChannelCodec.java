@@ -0,0 +1,67 @@
+package ru.rtc.warehouse.config.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Кодек сообщений канала {@code warehouse.robot.redis-channel}.
+ *
+ * <p>Публикация идёт в кодировке {@code warehouse.robot.redis-channel-encoding}. Чтение различает
+ * кодировку по первому байту: JSON-объект начинается с '{', CBOR-map — со старшего типа 5 (0xA0–0xBF),
+ * поэтому узлы со старой и новой настройкой могут работать в одном кластере во время выкатки.</p>
+ */
+@Component
+public class RobotChannelCodec {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final RobotProperties robotProperties;
+
+    public RobotChannelCodec(ObjectMapper objectMapper, RobotProperties robotProperties) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.robotProperties = robotProperties;
+    }
+
+    public byte[] channel() {
+        return robotProperties.getRedisChannel().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] encode(Object payload) throws JsonProcessingException {
+        return robotProperties.getRedisChannelEncoding() == RobotProperties.ChannelEncoding.CBOR
+                ? cborMapper.writeValueAsBytes(payload)
+                : jsonMapper.writeValueAsBytes(payload);
+    }
+
+    /**
+     * Публикует сообщение в канал; замена {@code convertAndSend}, который пишет только строки.
+     */
+    public void publish(RedisOperations<String, String> redis, Object payload) throws JsonProcessingException {
+        byte[] body = encode(payload);
+        byte[] channel = channel();
+        redis.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+    }
+
+    public JsonNode decode(byte[] body) throws IOException {
+        return isJson(body) ? jsonMapper.readTree(body) : cborMapper.readTree(body);
+    }
+
+    private static boolean isJson(byte[] body) {
+        for (byte b : body) {
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                continue;
+            }
+            return b == '{' || b == '[' || b == '"';
+        }
+        return true;
+    }
+}
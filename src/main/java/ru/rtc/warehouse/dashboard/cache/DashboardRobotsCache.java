@@ -0,0 +1,73 @@
+package ru.rtc.warehouse.dashboard.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.dashboard.config.DashboardRealtimeProperties;
+import ru.rtc.warehouse.dashboard.dto.robot.RobotDashboardDTO;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш карточек роботов дашборда по складу: код склада → (код робота → карточка).
+ *
+ * <p>Кадр робота сбрасывает запись склада после коммита — позже, чем {@code RobotFrameRedisPublisher}
+ * допишет recent_scans. Запись строится вне блокировок Caffeine; сброс во время построения отмечается
+ * счётчиком, и построенная запись удаляется, а не переживает сброс.</p>
+ */
+@Component
+public class DashboardRobotsCache {
+
+    // ключ для роботов без склада (Caffeine не принимает null)
+    private static final String NO_WAREHOUSE = "";
+
+    private final Cache<String, Map<String, RobotDashboardDTO>> cache;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DashboardRobotsCache(DashboardRealtimeProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getRobotsCacheTtl())
+                .maximumSize(10_000)
+                .build();
+    }
+
+    /**
+     * Карточки роботов склада; запись перестраивается через {@code loader}, если её нет
+     * или набор роботов склада изменился.
+     */
+    public Map<String, RobotDashboardDTO> get(String warehouseCode, Set<String> robotCodes,
+                                              Supplier<Map<String, RobotDashboardDTO>> loader) {
+        String key = key(warehouseCode);
+        Map<String, RobotDashboardDTO> cached = cache.getIfPresent(key);
+        if (cached != null && cached.keySet().equals(robotCodes)) {
+            return cached;
+        }
+        long generation = evictions.get();
+        Map<String, RobotDashboardDTO> loaded = Map.copyOf(loader.get());
+        cache.put(key, loaded);
+        if (evictions.get() != generation) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    public void evict(String warehouseCode) {
+        evictions.incrementAndGet();
+        cache.invalidate(key(warehouseCode));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFrameApplied(RobotFrameAppliedEvent event) {
+        evict(event.getWarehouseCode());
+    }
+
+    private static String key(String warehouseCode) {
+        return warehouseCode != null ? warehouseCode : NO_WAREHOUSE;
+    }
+}
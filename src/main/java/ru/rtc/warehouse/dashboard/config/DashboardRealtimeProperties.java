@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Настройки для «живых» (realtime) виджетов дашборда.
  *
@@ -35,6 +37,20 @@ public class DashboardRealtimeProperties {
      */
     private Ttl ttl = new Ttl();
 
+    /**
+     * Максимальный возраст закэшированного ответа {@code /api/dashboard/robots} по складу.
+     * <p>Кадр робота сбрасывает кэш своего склада сразу; TTL ограничивает устаревание статуса
+     * и заряда, которые меняются heartbeat-ами без кадров.</p>
+     */
+    private Duration robotsCacheTtl = Duration.ofSeconds(5);
+
+    /**
+     * Минимальный интервал между снимками realtime-статистики одного склада.
+     * <p>События между снимками склеиваются в один пересчёт; задержка изменения не превышает
+     * этот интервал плюс такт цикла рассылки ({@code push-tick-ms}).</p>
+     */
+    private Duration pushMinInterval = Duration.ofSeconds(1);
+
     /**
      * Времена жизни (TTL) для метрик, складываемых в Redis.
      */
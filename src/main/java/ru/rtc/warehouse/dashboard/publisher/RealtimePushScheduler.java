@@ -1,13 +1,27 @@
 package ru.rtc.warehouse.dashboard.publisher;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.dashboard.config.DashboardRealtimeProperties;
 import ru.rtc.warehouse.dashboard.service.RealtimeStatsService;
-import ru.rtc.warehouse.dashboard.service.adapter.WarehouseEntServiceAdapter;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рассылка realtime-статистики в {@code /topic/realtime/{code}} со склейкой: события только помечают склад
+ * изменённым ({@link #markDirty}), а цикл раз в {@code app.dashboard.push-tick-ms} отправляет по одному
+ * снимку на изменённый склад не чаще {@code app.dashboard.push-min-interval}.
+ *
+ * <p>Изменение попадает к клиентам не позже чем через push-min-interval + push-tick-ms; склады без
+ * изменений не пересчитываются и не рассылаются.</p>
+ */
+@Slf4j
 @Component
 @EnableScheduling
 @RequiredArgsConstructor
@@ -15,15 +29,40 @@ public class RealtimePushScheduler {
 
     private final RealtimeStatsService statsService;
     private final SimpMessagingTemplate broker;
-    private final WarehouseEntServiceAdapter warehouseService;
+    private final DashboardRealtimeProperties props;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastPushNanos = new ConcurrentHashMap<>();
+
+    public void markDirty(String warehouseCode) {
+        if (warehouseCode != null) {
+            dirty.add(warehouseCode);
+        }
+    }
 
-    // каждые 30 секунд шлём свежий срез
-    @Scheduled(fixedRateString = "${app.dashboard.push-interval-ms:30000}")
+    @Scheduled(fixedDelayString = "${app.dashboard.push-tick-ms:200}")
     public void push() {
-        warehouseService.findAll().forEach(w -> {
-            String warehouseCode = w.getCode();
-            broker.convertAndSend("/topic/realtime/" + warehouseCode,
-                    statsService.getStats(warehouseCode));
-        });
+        if (dirty.isEmpty()) {
+            return;
+        }
+        long minIntervalNanos = props.getPushMinInterval().toNanos();
+        for (String warehouseCode : dirty) {
+            long now = System.nanoTime();
+            Long last = lastPushNanos.get(warehouseCode);
+            if (last != null && now - last < minIntervalNanos) {
+                continue;
+            }
+            // метка снимается до чтения статистики: изменение во время чтения пометит склад снова
+            if (!dirty.remove(warehouseCode)) {
+                continue;
+            }
+            lastPushNanos.put(warehouseCode, now);
+            try {
+                broker.convertAndSend("/topic/realtime/" + warehouseCode, statsService.getStats(warehouseCode));
+            } catch (Exception e) {
+                log.warn("Failed to push realtime stats for warehouse {}: {}", warehouseCode, e.getMessage());
+                dirty.add(warehouseCode);
+            }
+        }
     }
 }
@@ -1,40 +1,47 @@
 package ru.rtc.warehouse.dashboard.redis;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.event.TransactionPhase;
 import ru.rtc.warehouse.dashboard.events.InventoryHistoryCreatedEvent;
 import ru.rtc.warehouse.dashboard.events.RobotSnapshotEvent;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import ru.rtc.warehouse.dashboard.service.RealtimeStatsService;
+import ru.rtc.warehouse.dashboard.publisher.RealtimePushScheduler;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
 
 /**
- * Слушатель доменных событий: после коммита фиксирует метрики в Redis.
+ * Слушатель доменных событий: после коммита фиксирует метрики в Redis и помечает склад для рассылки
+ * ({@link RealtimePushScheduler} склеивает события в один снимок на интервал).
  */
 @Component
 @RequiredArgsConstructor
 public class RealtimeEventsListener {
 
     private final RealtimeMetricsWriter writer;
-    private final SimpMessagingTemplate broker;
-    private final RealtimeStatsService stats;
+    private final RealtimePushScheduler pushScheduler;
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void on(RobotSnapshotEvent e) {
         var robot = e.getRobot();
         writer.onRobotSnapshot(robot);
-
-        var warehouseCode = robot.getWarehouse().getCode();
-        broker.convertAndSend("/topic/realtime/" + warehouseCode, stats.getStats(warehouseCode));
+        pushScheduler.markDirty(robot.getWarehouse().getCode());
     }
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void on(InventoryHistoryCreatedEvent e) {
         var history = e.getHistory();
         writer.onHistoryCreated(history);
+        pushScheduler.markDirty(history.getWarehouse().getCode());
+    }
 
-        var warehouseCode = history.getWarehouse().getCode();
-        broker.convertAndSend("/topic/realtime/" + warehouseCode, stats.getStats(warehouseCode));
+    /**
+     * Кадр робота: счётчики уже записаны пайплайном кадра (RobotFrameRedisPublisher), здесь — только пометка склада.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void on(RobotFrameAppliedEvent e) {
+        pushScheduler.markDirty(e.getWarehouseCode());
     }
 }
@@ -2,19 +2,29 @@ package ru.rtc.warehouse.dashboard.redis;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import ru.rtc.warehouse.dashboard.config.DashboardRealtimeProperties;
 import ru.rtc.warehouse.inventory.model.InventoryHistory;
 import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus.InventoryHistoryStatusCode;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
+import ru.rtc.warehouse.location.model.Location;
 import ru.rtc.warehouse.product.model.Product;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
 import ru.rtc.warehouse.robot.model.Robot;
 import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Записывает атомарные метрики в Redis по событиям домена.
@@ -24,6 +34,27 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class RealtimeMetricsWriter {
 
+    // KEYS[1] — кольцо; ARGV: поле минуты, поле счётчика, минута, сканов, TTL кольца (с)
+    private static final String ACTIVITY_RING_INCR =
+            "local cur = tonumber(redis.call('hget', KEYS[1], ARGV[1])) "
+                    + "local m = tonumber(ARGV[3]) "
+                    + "if cur == m then redis.call('hincrby', KEYS[1], ARGV[2], ARGV[4]) "
+                    + "elseif cur == nil or cur < m then redis.call('hset', KEYS[1], ARGV[1], ARGV[3], ARGV[2], ARGV[4]) end "
+                    + "redis.call('expire', KEYS[1], ARGV[5]) "
+                    + "return 'OK'";
+
+    // KEYS[1] — заряды роботов, KEYS[2] — кол-во, KEYS[3] — сумма; ARGV: робот, заряд.
+    // Первое наблюдение робота увеличивает кол-во, следующие сдвигают сумму на разницу с прошлым зарядом
+    private static final String BATTERY_UPDATE =
+            "local prev = redis.call('hget', KEYS[1], ARGV[1]) "
+                    + "local cur = tonumber(ARGV[2]) "
+                    + "if not prev then redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('incr', KEYS[2]) redis.call('incrby', KEYS[3], cur) "
+                    + "else local diff = cur - (tonumber(prev) or 0) "
+                    + "if diff ~= 0 then redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('incrby', KEYS[3], diff) end end "
+                    + "return 'OK'";
+
     private final StringRedisTemplate rt;
     private final DashboardRealtimeProperties props;
 
@@ -36,29 +67,77 @@ public class RealtimeMetricsWriter {
         String warehouseCode = ih.getWarehouse().getCode();
         if (warehouseCode == null) return;
 
-        LocalDateTime scannedAt = ih.getScannedAt();
+        Map<String, Boolean> critical = new LinkedHashMap<>();
+        Product p = ih.getProduct();
+        if (p != null && p.getCode() != null && ih.getStatus() != null && ih.getStatus().getCode() != null) {
+            critical.put(p.getCode(), ih.getStatus().getCode() == InventoryHistoryStatusCode.CRITICAL);
+        }
+
+        Location location = ih.getLocation();
+        int locationCell = location != null && location.getZone() != null && location.getRow() != null
+                && location.getShelf() != null
+                ? LocationGridIndex.cellIndex(ih.getWarehouse(), location.getZone(), location.getRow(), location.getShelf())
+                : -1;
+        rt.executePipelined((RedisCallback<Object>) connection -> {
+            appendScans((StringRedisConnection) connection, warehouseCode, locationCell, ih.getScannedAt(), 1, critical);
+            return null;
+        });
+    }
+
+    /**
+     * Добавляет в пайплайн {@code conn} обновление метрик по всем сканам кадра робота.
+     */
+    public void appendFrame(StringRedisConnection conn, RobotFrameAppliedEvent frame) {
+        if (frame.getWarehouseCode() == null || frame.getScannedAt() == null || frame.getItems().isEmpty()) return;
+
+        // итоговый статус SKU в кадре — по последнему скану
+        Map<String, Boolean> critical = new LinkedHashMap<>();
+        for (RobotFrameAppliedEvent.Item item : frame.getItems()) {
+            if (item.getProductCode() != null && item.getStatusCode() != null) {
+                critical.put(item.getProductCode(), InventoryHistoryStatusCode.CRITICAL.name().equals(item.getStatusCode()));
+            }
+        }
+        appendScans(conn, frame.getWarehouseCode(), frame.getLocationCell(), frame.getScannedAt(),
+                frame.getItems().size(), critical);
+    }
+
+    /**
+     * Счётчики checkedToday и кольца активности, бит ячейки локации в часовой карте (отрицательный {@code locationCell} —
+     * локации нет) и множество критичных SKU. TTL выставляется безусловно
+     * в том же пайплайне вместо чтения текущего TTL: для суточных и минутных ключей это лишь сдвигает срок.
+     */
+    private void appendScans(StringRedisConnection conn, String warehouseCode, int locationCell,
+                             LocalDateTime scannedAt, int scans, Map<String, Boolean> critical) {
         LocalDate day = scannedAt.toLocalDate();
 
         // checkedToday
         String dayKey = RealtimeRedisKeys.checkedToday(warehouseCode, day);
-        rt.opsForValue().increment(dayKey);
-        ensureExpireIfAbsent(dayKey, Duration.ofDays(props.getTtl().getCheckedDayDays()));
-
-        // activityMinute
-        long epochMinute = RealtimeRedisKeys.epochMinute(scannedAt);
-        String minuteKey = RealtimeRedisKeys.activityMinute(warehouseCode, epochMinute);
-        rt.opsForValue().increment(minuteKey);
-        ensureExpireIfAbsent(minuteKey, Duration.ofSeconds(props.getTtl().getMinuteSeriesSeconds()));
+        conn.incrBy(dayKey, scans);
+        conn.expire(dayKey, Duration.ofDays(props.getTtl().getCheckedDayDays()).getSeconds());
+
+        // кольцо активности: слот перезаписывается, если в нём более ранняя минута
+        long minute = RealtimeRedisKeys.minuteNumber(scannedAt);
+        conn.eval(ACTIVITY_RING_INCR, ReturnType.STATUS, 1, RealtimeRedisKeys.activityRing(warehouseCode),
+                RealtimeRedisKeys.activitySlotMinuteField(minute), RealtimeRedisKeys.activitySlotCountField(minute),
+                String.valueOf(minute), String.valueOf(scans), String.valueOf(props.getTtl().getMinuteSeriesSeconds()));
+
+        // локации, отсканированные за час
+        if (locationCell >= 0) {
+            String hourKey = RealtimeRedisKeys.locationsScannedHour(warehouseCode, RealtimeRedisKeys.epochHour(scannedAt));
+            conn.setBit(hourKey, locationCell, true);
+            conn.expire(hourKey, ScannedLocationsTracker.HOUR_KEY_TTL.getSeconds());
+        }
 
         // critical SKUs
-        Product p = ih.getProduct();
-        if (p != null && p.getCode() != null && ih.getStatus() != null && ih.getStatus().getCode() != null) {
-            String sku = p.getCode();
-            if (ih.getStatus().getCode() == InventoryHistoryStatusCode.CRITICAL) {
-                rt.opsForSet().add(RealtimeRedisKeys.criticalSkuSet(warehouseCode), sku);
-            } else {
-                rt.opsForSet().remove(RealtimeRedisKeys.criticalSkuSet(warehouseCode), sku);
-            }
+        List<String> add = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        critical.forEach((sku, isCritical) -> (isCritical ? add : remove).add(sku));
+        String criticalKey = RealtimeRedisKeys.criticalSkuSet(warehouseCode);
+        if (!add.isEmpty()) {
+            conn.sAdd(criticalKey, add.toArray(String[]::new));
+        }
+        if (!remove.isEmpty()) {
+            conn.sRem(criticalKey, remove.toArray(String[]::new));
         }
     }
 
@@ -68,72 +147,45 @@ public class RealtimeMetricsWriter {
     public void onRobotSnapshot(@Nullable Robot robot) {
         if (robot == null || robot.getCode() == null || robot.getWarehouse() == null) return;
 
-        final String warehouseCode = robot.getWarehouse().getCode();
-        if (warehouseCode == null) return;
+        StatusCode status = robot.getStatus() != null ? robot.getStatus().getCode() : null;
+        onRobotState(robot.getWarehouse().getCode(), robot.getCode(), status, robot.getBatteryLevel());
+    }
 
-        final String code = robot.getCode();
+    /**
+     * Обновляет метрики по статусу и заряду робота (снимок сущности или heartbeat /api/robots/status)
+     * одним пайплайном: heartbeat приходит часто, и отдельный запрос на каждую команду дорог.
+     */
+    public void onRobotState(@Nullable String warehouseCode, String code,
+                             @Nullable StatusCode status, @Nullable Integer batteryLevel) {
+        if (warehouseCode == null || code == null) return;
 
-        // --- Множества "все" / "активные" ---
-        rt.opsForSet().add(RealtimeRedisKeys.robotsAll(warehouseCode), code);
-        if (isActive(robot)) {
-            rt.opsForSet().add(RealtimeRedisKeys.robotsActive(warehouseCode), code);
-        } else {
-            rt.opsForSet().remove(RealtimeRedisKeys.robotsActive(warehouseCode), code);
-        }
+        rt.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
 
-        // --- Средний заряд: поддерживаем сумму/кол-во + последнее значение по роботу ---
-        if (robot.getBatteryLevel() != null) {
-            String hashKey = RealtimeRedisKeys.batteryHash(warehouseCode);
-            String prevStr = (String) rt.opsForHash().get(hashKey, code);
-            long newVal = robot.getBatteryLevel().longValue();
-
-            if (prevStr == null) {
-                // первое наблюдение по этому роботу
-                rt.opsForHash().put(hashKey, code, String.valueOf(newVal));
-                rt.opsForValue().increment(RealtimeRedisKeys.batteryCnt(warehouseCode));
-                rt.opsForValue().increment(RealtimeRedisKeys.batterySum(warehouseCode), newVal);
+            // --- Множества "все" / "активные" ---
+            conn.sAdd(RealtimeRedisKeys.robotsAll(warehouseCode), code);
+            if (isActive(status)) {
+                conn.sAdd(RealtimeRedisKeys.robotsActive(warehouseCode), code);
             } else {
-                long prev = parseLongSafe(prevStr, 0L);
-                long diff = newVal - prev;
-                if (diff != 0) {
-                    rt.opsForHash().put(hashKey, code, String.valueOf(newVal));
-                    rt.opsForValue().increment(RealtimeRedisKeys.batterySum(warehouseCode), diff);
-                }
+                conn.sRem(RealtimeRedisKeys.robotsActive(warehouseCode), code);
             }
-        }
-    }
 
-    // -------------------- Вспомогательные методы --------------------
-
-    /**
-     * Устанавливает TTL для ключа, если у ключа отсутствует TTL.
-     */
-    private void ensureExpireIfAbsent(String key, Duration ttl) {
-        try {
-            Long currentTtl = rt.getExpire(key);
-            if (currentTtl == null || currentTtl < 0) { // -1: нет TTL, -2: ключа нет
-                rt.expire(key, ttl);
+            // --- Средний заряд: сумма/кол-во + последнее значение по роботу, пересчёт на стороне Redis ---
+            if (batteryLevel != null) {
+                conn.eval(BATTERY_UPDATE, ReturnType.STATUS, 3, RealtimeRedisKeys.batteryHash(warehouseCode),
+                        RealtimeRedisKeys.batteryCnt(warehouseCode), RealtimeRedisKeys.batterySum(warehouseCode),
+                        code, String.valueOf(batteryLevel.longValue()));
             }
-        } catch (Exception e) {
-            log.debug("Unable to set expire for key '{}': {}", key, e.getMessage());
-        }
+            return null;
+        });
     }
 
-    /**
-     * Безопасный парсинг long.
-     */
-    private long parseLongSafe(String s, long def) {
-        try {
-            return Long.parseLong(s);
-        } catch (NumberFormatException ex) {
-            return def;
-        }
-    }
+    // -------------------- Вспомогательные методы --------------------
 
     /**
      * Признак «активного» робота для realtime-метрик.
      */
-    private boolean isActive(Robot r) {
-        return r.getStatus() != null && r.getStatus().getCode() == StatusCode.WORKING;
+    private boolean isActive(@Nullable StatusCode status) {
+        return status == StatusCode.WORKING;
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
@@ -21,8 +22,23 @@ public final class RealtimeRedisKeys {
         return prefix(warehouseCode) + "checked:" + DAY.format(day);
     }
 
-    public static String activityMinute(String warehouseCode, long epochMinute) {
-        return prefix(warehouseCode) + "act:" + epochMinute;
+    /** Число слотов кольца поминутной активности — окно графика в минутах. */
+    public static final int ACTIVITY_SLOTS = 60;
+
+    /**
+     * Кольцо поминутной активности: hash из {@link #ACTIVITY_SLOTS} слотов, слот минуты {@code m} —
+     * поля {@code m<i>} (номер минуты в слоте) и {@code c<i>} (число сканов), {@code i = m % 60}.
+     */
+    public static String activityRing(String warehouseCode) {
+        return prefix(warehouseCode) + "act:ring";
+    }
+
+    public static String activitySlotMinuteField(long minute) {
+        return "m" + Math.floorMod(minute, ACTIVITY_SLOTS);
+    }
+
+    public static String activitySlotCountField(long minute) {
+        return "c" + Math.floorMod(minute, ACTIVITY_SLOTS);
     }
 
     public static String robotsAll(String warehouseCode) {
@@ -49,6 +65,22 @@ public final class RealtimeRedisKeys {
         return prefix(warehouseCode) + "sku:critical";
     }
 
+    /**
+     * Битовая карта локаций склада, отсканированных за час {@code epochHour}; номер бита — плотный номер
+     * ячейки склада ({@code LocationGridIndex.cellIndex}), так что размер карты ограничен сеткой склада.
+     */
+    public static String locationsScannedHour(String warehouseCode, long epochHour) {
+        return prefix(warehouseCode) + "loc:scanned:cell:" + epochHour;
+    }
+
+    public static String locationsScanned24h(String warehouseCode) {
+        return prefix(warehouseCode) + "loc:scanned:cell:24h";
+    }
+
+    public static String locationsScannedSeeded(String warehouseCode) {
+        return prefix(warehouseCode) + "loc:scanned:cell:seeded";
+    }
+
     public static ZoneId zone() {
         return ZoneId.systemDefault();
     }
@@ -56,4 +88,18 @@ public final class RealtimeRedisKeys {
     public static long epochMinute(LocalDateTime ldt) {
         return ldt.atZone(zone()).truncatedTo(ChronoUnit.MINUTES).toEpochSecond();
     }
+
+    /**
+     * Номер минуты от эпохи (в зоне {@link #zone()}) — ключ слота кольца активности.
+     */
+    public static long minuteNumber(LocalDateTime ldt) {
+        return epochMinute(ldt) / 60;
+    }
+
+    /**
+     * Номер часа от эпохи — так же, как {@code EXTRACT(EPOCH FROM scanned_at) / 3600} по столбцу без зоны.
+     */
+    public static long epochHour(LocalDateTime ldt) {
+        return Math.floorDiv(ldt.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
 }
@@ -0,0 +1,93 @@
+package ru.rtc.warehouse.dashboard.redis;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotProperties;
+import ru.rtc.warehouse.dashboard.dto.ScanDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение последних сканов роботов из списков {@code robot:{code}:recent_scans}
+ * (пишет {@code RobotFrameRedisPublisher}): списки нескольких роботов читаются одним пайплайном,
+ * элементы разбираются сразу в {@link ScanDTO}, новые первыми.
+ */
+@Slf4j
+@Component
+public class RecentScansReader {
+
+    private final RobotProperties robotProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectReader scanReader;
+
+    public RecentScansReader(RobotProperties robotProperties, StringRedisTemplate redisTemplate,
+                             ObjectMapper objectMapper) {
+        this.robotProperties = robotProperties;
+        this.redisTemplate = redisTemplate;
+        this.scanReader = objectMapper.readerFor(ScanDTO.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public List<ScanDTO> read(String robotCode, int limit) {
+        return read(List.of(robotCode), limit).getOrDefault(robotCode, List.of());
+    }
+
+    /**
+     * Последние {@code limit} сканов каждого робота; при недоступности Redis — пустой результат.
+     */
+    public Map<String, List<ScanDTO>> read(Collection<String> robotCodes, int limit) {
+        if (robotCodes.isEmpty() || limit <= 0) {
+            return Map.of();
+        }
+        List<String> codes = List.copyOf(robotCodes);
+        List<Object> lists;
+        try {
+            lists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String code : codes) {
+                    conn.lRange(key(code), -limit, -1);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to read recent scans for {} robot(s) from Redis: {}", codes.size(), e.getMessage());
+            return Map.of();
+        }
+
+        Map<String, List<ScanDTO>> result = new HashMap<>(codes.size() * 2);
+        for (int i = 0; i < codes.size(); i++) {
+            result.put(codes.get(i), decode(codes.get(i), lists.get(i)));
+        }
+        return result;
+    }
+
+    private List<ScanDTO> decode(String robotCode, Object raw) {
+        if (!(raw instanceof List<?> items) || items.isEmpty()) {
+            return List.of();
+        }
+        List<ScanDTO> scans = new ArrayList<>(items.size());
+        // в списке новые справа — отдаём в обратном порядке
+        for (int i = items.size() - 1; i >= 0; i--) {
+            try {
+                scans.add(scanReader.readValue((String) items.get(i)));
+            } catch (Exception e) {
+                log.warn("Failed to parse scan JSON for robot {}: {}", robotCode, e.getMessage());
+            }
+        }
+        return scans;
+    }
+
+    private String key(String robotCode) {
+        return String.format(robotProperties.getRecentScansKeyTemplate(), robotCode);
+    }
+}
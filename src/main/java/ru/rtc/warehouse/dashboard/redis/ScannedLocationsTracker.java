@@ -0,0 +1,97 @@
+package ru.rtc.warehouse.dashboard.redis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Число локаций склада, отсканированных за последние 24 часа, по часовым битовым картам
+ * {@link RealtimeRedisKeys#locationsScannedHour} (бит = плотный номер ячейки {@link LocationGridIndex#cellIndex},
+ * ставит {@link RealtimeMetricsWriter}).
+ *
+ * <p>Подсчёт — OR 24 карт и BITCOUNT одним Lua-скриптом на стороне Redis. Карты склада заполняются
+ * из inventory_history одним запросом, если их ещё нет (пустой Redis, первый запуск).</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScannedLocationsTracker {
+
+    static final int HOURS = 24;
+    /** Час хранится чуть дольше окна, чтобы последний час окна не истёк раньше времени. */
+    static final Duration HOUR_KEY_TTL = Duration.ofHours(HOURS + 1);
+
+    // KEYS[1] — временный ключ результата, KEYS[2..] — часовые карты
+    private static final RedisScript<Long> OR_COUNT = new DefaultRedisScript<>(
+            "redis.call('bitop', 'or', KEYS[1], unpack(KEYS, 2)) "
+                    + "local n = redis.call('bitcount', KEYS[1]) "
+                    + "redis.call('del', KEYS[1]) "
+                    + "return n", Long.class);
+
+    private final StringRedisTemplate rt;
+    private final InventoryHistoryRepository historyRepository;
+    private final LocationGridIndex gridIndex;
+
+    public long countScannedLast24h(Warehouse warehouse) {
+        String warehouseCode = warehouse.getCode();
+        long currentHour = RealtimeRedisKeys.epochHour(LocalDateTime.now());
+        seedIfNeeded(warehouse, currentHour);
+
+        List<String> keys = new ArrayList<>(HOURS + 1);
+        keys.add(RealtimeRedisKeys.locationsScanned24h(warehouseCode));
+        for (int i = 0; i < HOURS; i++) {
+            keys.add(RealtimeRedisKeys.locationsScannedHour(warehouseCode, currentHour - i));
+        }
+        Long count = rt.execute(OR_COUNT, keys);
+        return count != null ? count : 0;
+    }
+
+    private void seedIfNeeded(Warehouse warehouse, long currentHour) {
+        String warehouseCode = warehouse.getCode();
+        String seededKey = RealtimeRedisKeys.locationsScannedSeeded(warehouseCode);
+        if (!Boolean.TRUE.equals(rt.opsForValue().setIfAbsent(seededKey, "1", HOUR_KEY_TTL))) {
+            return;
+        }
+        try {
+            LocalDateTime since = LocalDateTime.ofEpochSecond((currentHour - HOURS + 1) * 3600, 0, ZoneOffset.UTC);
+            List<Object[]> rows = historyRepository.countHourlyScansByLocation(warehouse.getId(), since);
+            // история хранит id локации, карты — номер ячейки: соответствие берётся из сетки склада
+            Map<Long, Integer> cells = new HashMap<>();
+            gridIndex.forEach(warehouse, (locationId, zone, row, shelf) ->
+                    cells.put(locationId, LocationGridIndex.cellIndex(warehouse, zone, row, shelf)));
+            rt.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Object[] r : rows) {
+                    Integer cell = cells.get(((Number) r[0]).longValue());
+                    if (cell == null || cell < 0) {
+                        continue;
+                    }
+                    String hourKey = RealtimeRedisKeys.locationsScannedHour(warehouseCode, ((Number) r[1]).longValue());
+                    conn.setBit(hourKey, cell, true);
+                    conn.expire(hourKey, HOUR_KEY_TTL.getSeconds());
+                }
+                return null;
+            });
+            log.info("Scanned-location bitmaps seeded for warehouse {}: {} location-hour(s)", warehouseCode, rows.size());
+        } catch (RuntimeException e) {
+            rt.delete(seededKey);
+            throw e;
+        }
+    }
+}
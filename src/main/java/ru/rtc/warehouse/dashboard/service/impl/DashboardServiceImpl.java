@@ -1,23 +1,26 @@
 package ru.rtc.warehouse.dashboard.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.rtc.warehouse.dashboard.cache.DashboardRobotsCache;
 import ru.rtc.warehouse.dashboard.dto.*;
 import ru.rtc.warehouse.dashboard.dto.location.WarehouseLocationsDTO;
 import ru.rtc.warehouse.dashboard.dto.robot.*;
+import ru.rtc.warehouse.dashboard.redis.RecentScansReader;
+import ru.rtc.warehouse.dashboard.redis.ScannedLocationsTracker;
 import ru.rtc.warehouse.dashboard.service.DashboardService;
 import ru.rtc.warehouse.dashboard.service.dto.AlertStatsDTO;
 import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus;
 import ru.rtc.warehouse.inventory.service.InventoryHistoryEntityService;
 import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
-import ru.rtc.warehouse.location.model.Location;
 import ru.rtc.warehouse.location.service.LocationEntityService;
 import ru.rtc.warehouse.location.service.LocationMetricsService;
+import ru.rtc.warehouse.robot.cache.RobotLiveState;
+import ru.rtc.warehouse.robot.cache.RobotLiveStateStore;
 import ru.rtc.warehouse.robot.model.Robot;
+import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
 import ru.rtc.warehouse.robot.service.RobotEntityService;
 import ru.rtc.warehouse.warehouse.model.Warehouse;
 import ru.rtc.warehouse.warehouse.service.WarehouseEntityService;
@@ -34,23 +37,38 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class DashboardServiceImpl implements DashboardService {
 
+	private static final int RECENT_SCANS = 5;
+
 	private final RobotEntityService robotEntityService;
 	private final WarehouseEntityService warehouseEntityService;
 	private final InventoryHistoryEntityService inventoryHistoryEntityService;
 	private final LocationMetricsService locationMetricsService;
 	private final LocationEntityService locationEntityService;
-
-	private final StringRedisTemplate redisTemplate;
-	private final ObjectMapper objectMapper;
+	private final RobotLiveStateStore robotLiveStateStore;
+	private final RecentScansReader recentScansReader;
+	private final DashboardRobotsCache robotsCache;
+	private final ScannedLocationsTracker scannedLocationsTracker;
 
 	@Override
 	public List<RobotDashboardDTO> getAllRobotsForDashboard() {
 		log.info("Getting all robots for dashboard");
 
-		List<Robot> robots = robotEntityService.findAllWithWarehouseAndLocation();
-		return robots.stream()
+		List<Robot> robots = robotEntityService.findAllWithWarehouseAndLocation().stream()
 				.filter(robot -> !robot.isDeleted())
-				.map(this::convertToRobotDashboardDTO)
+				.collect(Collectors.toList());
+
+		// карточки строятся по складу: recent_scans всех роботов склада — одним пайплайном, результат кэшируется
+		Map<String, List<Robot>> byWarehouse = robots.stream()
+				.collect(Collectors.groupingBy(this::warehouseCode, LinkedHashMap::new, Collectors.toList()));
+		Map<String, RobotDashboardDTO> cards = new HashMap<>(robots.size() * 2);
+		byWarehouse.forEach((warehouseCode, warehouseRobots) -> {
+			Set<String> codes = warehouseRobots.stream().map(Robot::getCode).collect(Collectors.toSet());
+			cards.putAll(robotsCache.get(warehouseCode, codes, () -> buildRobotDashboardDTOs(warehouseRobots)));
+		});
+
+		return robots.stream()
+				.map(robot -> cards.get(robot.getCode()))
+				.filter(Objects::nonNull)
 				.collect(Collectors.toList());
 	}
 
@@ -63,7 +81,7 @@ public class DashboardServiceImpl implements DashboardService {
 			throw new RuntimeException("Robot is deleted: " + robotCode);
 		}
 
-		return convertToRobotDashboardDTO(robot);
+		return convertToRobotDashboardDTO(robot, recentScansReader.read(robot.getCode(), RECENT_SCANS));
 	}
 
 	@Override
@@ -71,7 +89,7 @@ public class DashboardServiceImpl implements DashboardService {
 		log.info("Getting {} recent scans for robot {}", limit, robotCode);
 
 		Robot robot = robotEntityService.findByCode(robotCode);
-		List<ScanDTO> recentScans = getRecentScansFromRedis(robotCode, limit);
+		List<ScanDTO> recentScans = recentScansReader.read(robotCode, limit);
 
 		RobotScansDTO response = new RobotScansDTO();
 		response.setRobot_id(robotCode);
@@ -103,11 +121,7 @@ public class DashboardServiceImpl implements DashboardService {
 		log.info("Getting locations for warehouse {}", warehouseCode);
 
 		Warehouse warehouse = warehouseEntityService.findByCode(warehouseCode);
-		List<Location> locations = locationEntityService.findByWarehouse(warehouse);
-
-		List<LocationMetricsDTO> locationMetrics = locations.stream()
-				.map(locationMetricsService::computeFor)
-				.collect(Collectors.toList());
+		List<LocationMetricsDTO> locationMetrics = locationMetricsService.computeForWarehouse(warehouse);
 
 		WarehouseLocationsDTO response = new WarehouseLocationsDTO();
 		response.setWarehouse_code(warehouseCode);
@@ -134,25 +148,38 @@ public class DashboardServiceImpl implements DashboardService {
 		return response;
 	}
 
-	private RobotDashboardDTO convertToRobotDashboardDTO(Robot robot) {
+	private Map<String, RobotDashboardDTO> buildRobotDashboardDTOs(List<Robot> robots) {
+		Map<String, List<ScanDTO>> scans = recentScansReader.read(
+				robots.stream().map(Robot::getCode).toList(), RECENT_SCANS);
+		Map<String, RobotDashboardDTO> dtos = new HashMap<>(robots.size() * 2);
+		for (Robot robot : robots) {
+			dtos.put(robot.getCode(), convertToRobotDashboardDTO(robot, scans.getOrDefault(robot.getCode(), List.of())));
+		}
+		return dtos;
+	}
+
+	private String warehouseCode(Robot robot) {
+		// groupingBy не принимает null-ключ; DashboardRobotsCache хранит роботов без склада под тем же ""
+		return robot.getWarehouse() != null ? robot.getWarehouse().getCode() : "";
+	}
+
+	private RobotDashboardDTO convertToRobotDashboardDTO(Robot robot, List<ScanDTO> recentScans) {
 		RobotDashboardDTO dto = new RobotDashboardDTO();
 		dto.setRobot_id(robot.getCode());
-		dto.setBattery_level(robot.getBatteryLevel());
-
-		if (robot.getLocation() != null) {
-			dto.setZone(robot.getLocation().getZone());
-			dto.setRow(robot.getLocation().getRow());
-			dto.setShelf(robot.getLocation().getShelf());
-		}
 
-		dto.setTimestamp(robot.getLastUpdate());
-		dto.setStatus(robot.getStatus().getCode().name());
+		// статус, заряд, локация и время — из оперативного состояния, строка robots отстаёт на период сброса
+		RobotLiveState state = robotLiveStateStore.view(robot);
+		dto.setBattery_level(state.batteryLevel());
+		dto.setZone(state.zone());
+		dto.setRow(state.row());
+		dto.setShelf(state.shelf());
+		dto.setTimestamp(state.lastUpdate());
+		dto.setStatus(state.status().name());
 
 		if (robot.getWarehouse() != null) {
 			dto.setWarehouse_code(robot.getWarehouse().getCode());
 		}
 
-		List<ScanDTO> recentScans = getRecentScansFromRedis(robot.getCode(), 5);
 		dto.setRecent_scans(recentScans);
 
 		return dto;
@@ -161,15 +188,13 @@ public class DashboardServiceImpl implements DashboardService {
 	private WarehouseRobotDTO convertToWarehouseRobotDTO(Robot robot) {
 		WarehouseRobotDTO dto = new WarehouseRobotDTO();
 		dto.setRobot_id(robot.getCode());
-		dto.setStatus(robot.getStatus().getCode().name());
-		dto.setBattery_level(robot.getBatteryLevel());
-		dto.setLast_update(robot.getLastUpdate());
-
-		if (robot.getLocation() != null) {
-			dto.setZone(robot.getLocation().getZone());
-			dto.setRow(robot.getLocation().getRow());
-			dto.setShelf(robot.getLocation().getShelf());
-		}
+		RobotLiveState state = robotLiveStateStore.view(robot);
+		dto.setStatus(state.status().name());
+		dto.setBattery_level(state.batteryLevel());
+		dto.setLast_update(state.lastUpdate());
+		dto.setZone(state.zone());
+		dto.setRow(state.row());
+		dto.setShelf(state.shelf());
 
 		return dto;
 	}
@@ -184,17 +209,17 @@ public class DashboardServiceImpl implements DashboardService {
 		metrics.setTotal_robots(activeRobots.size());
 
 		long workingRobots = activeRobots.stream()
-				.filter(robot -> "WORKING".equals(robot.getStatus().getCode().name()))
+				.filter(robot -> status(robot) == StatusCode.WORKING)
 				.count();
 		metrics.setActive_robots((int) workingRobots);
 
 		long chargingRobots = activeRobots.stream()
-				.filter(robot -> "CHARGING".equals(robot.getStatus().getCode().name()))
+				.filter(robot -> status(robot) == StatusCode.CHARGING)
 				.count();
 		metrics.setCharging_robots((int) chargingRobots);
 
 		long errorRobots = activeRobots.stream()
-				.filter(robot -> "ERROR".equals(robot.getStatus().getCode().name()))
+				.filter(robot -> status(robot) == StatusCode.ERROR)
 				.count();
 		metrics.setError_robots((int) errorRobots);
 
@@ -229,27 +254,35 @@ public class DashboardServiceImpl implements DashboardService {
 		BatteryLevelsDTO batteryLevels = new BatteryLevelsDTO();
 
 		OptionalDouble avgBattery = robots.stream()
-				.mapToInt(Robot::getBatteryLevel)
+				.mapToInt(this::batteryLevel)
 				.average();
 		batteryLevels.setAverage(avgBattery.isPresent() ? (int) avgBattery.getAsDouble() : 0);
 
 		OptionalInt minBattery = robots.stream()
-				.mapToInt(Robot::getBatteryLevel)
+				.mapToInt(this::batteryLevel)
 				.min();
 		batteryLevels.setLowest(minBattery.isPresent() ? minBattery.getAsInt() : 0);
 
 		OptionalInt maxBattery = robots.stream()
-				.mapToInt(Robot::getBatteryLevel)
+				.mapToInt(this::batteryLevel)
 				.max();
 		batteryLevels.setHighest(maxBattery.isPresent() ? maxBattery.getAsInt() : 0);
 
 		return batteryLevels;
 	}
 
+	private int batteryLevel(Robot robot) {
+		return robotLiveStateStore.view(robot).batteryLevel();
+	}
+
+	private StatusCode status(Robot robot) {
+		return robotLiveStateStore.view(robot).status();
+	}
+
 	private Map<String, Integer> calculateStatusDistribution(List<Robot> robots) {
 		return robots.stream()
 				.collect(Collectors.groupingBy(
-						robot -> robot.getStatus().getCode().name(),
+						robot -> status(robot).name(),
 						Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
 				));
 	}
@@ -269,15 +302,11 @@ public class DashboardServiceImpl implements DashboardService {
 
 	private String calculateCapacityUsed(Warehouse warehouse) {
 		try {
-			List<Location> locations = locationEntityService.findByWarehouse(warehouse);
-			long totalLocations = locations.size();
+			long totalLocations = locationEntityService.countByWarehouse(warehouse);
 
 			if (totalLocations > 0) {
-				// Более простая логика - считаем локации с недавними сканированиями
-				LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-				long activeLocations = locations.stream()
-						.filter(location -> hasRecentScans(location, last24Hours))
-						.count();
+				// локации с недавними сканированиями — по часовым битовым картам в Redis
+				long activeLocations = Math.min(scannedLocationsTracker.countScannedLast24h(warehouse), totalLocations);
 
 				int percent = (int) ((activeLocations * 100) / totalLocations);
 				return percent + "%";
@@ -289,74 +318,4 @@ public class DashboardServiceImpl implements DashboardService {
 		return "0%";
 	}
 
-	private boolean hasRecentScans(Location location, LocalDateTime since) {
-		try {
-			// Используем существующий метод для проверки сканирований
-			return inventoryHistoryEntityService.existsByLocationAndScannedAtAfter(location, since);
-		} catch (Exception e) {
-			log.debug("Error checking recent scans for location: {}", e.getMessage());
-			return false;
-		}
-	}
-
-	@SuppressWarnings("unchecked")
-	private List<ScanDTO> getRecentScansFromRedis(String robotCode, int limit) {
-		try {
-			String redisKey = String.format("robot:%s:recent_scans", robotCode);
-			List<String> rawScans = redisTemplate.opsForList().range(redisKey, -limit, -1);
-
-			if (rawScans == null || rawScans.isEmpty()) {
-				return new ArrayList<>();
-			}
-
-			Collections.reverse(rawScans);
-
-			return rawScans.stream()
-					.map(scanJson -> {
-						try {
-							Map<String, Object> scanMap = objectMapper.readValue(scanJson, Map.class);
-							return convertMapToScanDTO(scanMap);
-						} catch (Exception e) {
-							log.warn("Failed to parse scan JSON for robot {}: {}", robotCode, e.getMessage());
-							return null;
-						}
-					})
-					.filter(Objects::nonNull)
-					.collect(Collectors.toList());
-
-		} catch (Exception e) {
-			log.warn("Failed to get recent scans from Redis for robot {}: {}", robotCode, e.getMessage());
-			return new ArrayList<>();
-		}
-	}
-
-	private ScanDTO convertMapToScanDTO(Map<String, Object> scanMap) {
-		ScanDTO scanDTO = new ScanDTO();
-		scanDTO.setProductCode((String) scanMap.get("productCode"));
-		scanDTO.setProductName((String) scanMap.get("productName"));
-
-		Object quantity = scanMap.get("quantity");
-		if (quantity instanceof Integer) {
-			scanDTO.setQuantity((Integer) quantity);
-		} else if (quantity != null) {
-			scanDTO.setQuantity(Integer.valueOf(quantity.toString()));
-		}
-
-		scanDTO.setStatus((String) scanMap.get("status"));
-
-		Object diff = scanMap.get("diff");
-		if (diff instanceof Integer) {
-			scanDTO.setDiff((Integer) diff);
-		} else if (diff != null) {
-			scanDTO.setDiff(Integer.valueOf(diff.toString()));
-		}
-
-		Object scannedAt = scanMap.get("scannedAt");
-		if (scannedAt instanceof String) {
-			scanDTO.setScannedAt(LocalDateTime.parse((String) scannedAt));
-		}
-
-		return scanDTO;
-	}
-
 }
\ No newline at end of file
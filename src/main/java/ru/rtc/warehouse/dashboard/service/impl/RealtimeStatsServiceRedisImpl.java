@@ -1,6 +1,8 @@
 package ru.rtc.warehouse.dashboard.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +17,7 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Реализация чтения real-time метрик из Redis.
@@ -31,25 +34,39 @@ public class RealtimeStatsServiceRedisImpl implements RealtimeStatsService {
         ZoneId zone = RealtimeRedisKeys.zone();
 
         LocalDateTime toMinute = LocalDateTime.now(zone).truncatedTo(ChronoUnit.MINUTES);
-        LocalDateTime fromHour = toMinute.minusMinutes(59);
+        LocalDateTime fromHour = toMinute.minusMinutes(RealtimeRedisKeys.ACTIVITY_SLOTS - 1);
 
-        long active = size(RealtimeRedisKeys.robotsActive(warehouseCode));
-        long total = size(RealtimeRedisKeys.robotsAll(warehouseCode));
-        long criticalSkus = size(RealtimeRedisKeys.criticalSkuSet(warehouseCode));
+        // весь снимок — одним пайплайном: SCARD x3, MGET счётчиков и HGETALL кольца активности
+        List<Object> r = rt.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sCard(RealtimeRedisKeys.robotsActive(warehouseCode));
+            conn.sCard(RealtimeRedisKeys.robotsAll(warehouseCode));
+            conn.sCard(RealtimeRedisKeys.criticalSkuSet(warehouseCode));
+            conn.mGet(RealtimeRedisKeys.batterySum(warehouseCode),
+                    RealtimeRedisKeys.batteryCnt(warehouseCode),
+                    RealtimeRedisKeys.checkedToday(warehouseCode, LocalDate.now(zone)));
+            conn.hGetAll(RealtimeRedisKeys.activityRing(warehouseCode));
+            return null;
+        });
 
-        long sum = parseLong(rt.opsForValue().get(RealtimeRedisKeys.batterySum(warehouseCode)));
-        long cnt = parseLong(rt.opsForValue().get(RealtimeRedisKeys.batteryCnt(warehouseCode)));
-        Double avgBattery = (cnt == 0L) ? null : (double) sum / cnt;
+        long active = toLong(r.get(0));
+        long total = toLong(r.get(1));
+        long criticalSkus = toLong(r.get(2));
 
-        long checkedToday = parseLong(rt.opsForValue().get(
-                RealtimeRedisKeys.checkedToday(warehouseCode, LocalDate.now(zone))));
+        List<?> counters = r.get(3) instanceof List<?> l ? l : List.of();
+        long sum = parseLong(valueAt(counters, 0));
+        long cnt = parseLong(valueAt(counters, 1));
+        Double avgBattery = (cnt == 0L) ? null : (double) sum / cnt;
+        long checkedToday = parseLong(valueAt(counters, 2));
 
-        List<RealtimeStatsDTO.ActivityPoint> series = new ArrayList<>(60);
+        Map<?, ?> ring = r.get(4) instanceof Map<?, ?> m ? m : Map.of();
+        List<RealtimeStatsDTO.ActivityPoint> series = new ArrayList<>(RealtimeRedisKeys.ACTIVITY_SLOTS);
         LocalDateTime cur = fromHour;
         while (!cur.isAfter(toMinute)) {
-            long epochMin = RealtimeRedisKeys.epochMinute(cur);
-            String key = RealtimeRedisKeys.activityMinute(warehouseCode, epochMin);
-            long v = parseLong(rt.opsForValue().get(key));
+            long minute = RealtimeRedisKeys.minuteNumber(cur);
+            // слот с другой минутой — устаревшие данные прошлого часа
+            boolean current = String.valueOf(minute).equals(ring.get(RealtimeRedisKeys.activitySlotMinuteField(minute)));
+            long v = current ? parseLong((String) ring.get(RealtimeRedisKeys.activitySlotCountField(minute))) : 0L;
             series.add(RealtimeStatsDTO.ActivityPoint.builder()
                     .ts(cur)
                     .count(v)
@@ -69,9 +86,12 @@ public class RealtimeStatsServiceRedisImpl implements RealtimeStatsService {
     }
 
 
-    private long size(String key) {
-        Long s = rt.opsForSet().size(key);
-        return s == null ? 0L : s;
+    private long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
+    private String valueAt(List<?> values, int index) {
+        return index < values.size() && values.get(index) instanceof String v ? v : null;
     }
 
     private long parseLong(String s) {
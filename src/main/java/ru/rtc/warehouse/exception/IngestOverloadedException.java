@@ -0,0 +1,15 @@
+package ru.rtc.warehouse.exception;
+
+public class IngestOverloadedException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public IngestOverloadedException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
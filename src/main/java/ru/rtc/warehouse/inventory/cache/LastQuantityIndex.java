@@ -0,0 +1,122 @@
+package ru.rtc.warehouse.inventory.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.inventory.events.InventoryHistoryChangedEvent;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Последнее известное количество товара в локации: (warehouseId, locationId, productId) → quantity, scannedAt.
+ *
+ * <p>Заменяет запрос «последняя запись истории» при расчёте expectedQuantity/difference на приёме кадров.
+ * Заполняется лениво (промах — один запрос в БД) и поддерживается самим приёмом через
+ * {@link RobotFrameAppliedEvent} после коммита. Отсутствие истории тоже кэшируется. Изменения истории
+ * в обход приёма ({@link InventoryHistoryChangedEvent}) сбрасывают снимки тоже после коммита: сброс
+ * до коммита позволил бы загрузке из другой транзакции вернуть в индекс прежнее количество.</p>
+ */
+@Slf4j
+@Component
+public class LastQuantityIndex {
+
+    private final Cache<Key, Snapshot> cache;
+    // растёт при каждом сбросе: загрузка, начатая до сброса, не оставляет в кэше устаревший снимок
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LastQuantityIndex(@Value("${warehouse.inventory.last-quantity-cache-size:200000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Возвращает последний снимок по ключу, при промахе загружает его через {@code loader}
+     * (вне mapping-функции Caffeine).
+     */
+    public Snapshot get(Long warehouseId, Long locationId, Long productId, Supplier<Snapshot> loader) {
+        Key key = new Key(warehouseId, locationId, productId);
+        Snapshot cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = invalidations.get();
+        Snapshot loaded = loader.get();
+        // снимок, записанный приёмом во время загрузки, не старше загруженного
+        Snapshot current = cache.asMap().putIfAbsent(key, loaded);
+        if (invalidations.get() != generation) {
+            cache.invalidate(key);
+        }
+        return current != null ? current : loaded;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFrameApplied(RobotFrameAppliedEvent event) {
+        for (RobotFrameAppliedEvent.Item item : event.getItems()) {
+            record(event.getWarehouseId(), event.getLocationId(), item.getProductId(),
+                    item.getQuantity(), event.getScannedAt());
+        }
+    }
+
+    /**
+     * Обновляет снимок, если скан не старше уже известного (кадры роботов могут приходить не по порядку).
+     */
+    public void record(Long warehouseId, Long locationId, Long productId, Integer quantity, LocalDateTime scannedAt) {
+        Snapshot fresh = new Snapshot(quantity, scannedAt);
+        cache.asMap().merge(new Key(warehouseId, locationId, productId), fresh,
+                (current, candidate) -> current.isNewerThan(candidate) ? current : candidate);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHistoryChanged(InventoryHistoryChangedEvent event) {
+        if (event.getWarehouseId() != null) {
+            invalidateWarehouse(event.getWarehouseId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateWarehouse(Long warehouseId) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(k -> k.warehouseId.equals(warehouseId));
+        log.debug("Last quantity index invalidated for warehouse {}", warehouseId);
+    }
+
+    /**
+     * Сбрасывает снимки складов, подходящих под {@code warehouses}.
+     */
+    public void invalidateWarehouses(LongPredicate warehouses) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(k -> warehouses.test(k.warehouseId));
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private record Key(Long warehouseId, Long locationId, Long productId) {
+    }
+
+    /**
+     * Последнее количество и время скана; {@link #empty()} — истории по ключу нет.
+     */
+    public record Snapshot(Integer quantity, LocalDateTime scannedAt) {
+
+        public static Snapshot empty() {
+            return new Snapshot(null, null);
+        }
+
+        private boolean isNewerThan(Snapshot other) {
+            return scannedAt != null && other.scannedAt != null && scannedAt.isAfter(other.scannedAt);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.rtc.warehouse.inventory.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Событие: история инвентаризации изменена в обход приёма кадров (импорт CSV, ручная правка).
+ * {@code warehouseId == null} — затронуты все склады.
+ */
+@Getter
+public class InventoryHistoryChangedEvent extends ApplicationEvent {
+	private final Long warehouseId;
+
+	public InventoryHistoryChangedEvent(Object source, Long warehouseId) {
+		super(source);
+		this.warehouseId = warehouseId;
+	}
+}
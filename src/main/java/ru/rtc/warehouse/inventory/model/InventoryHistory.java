@@ -21,8 +21,11 @@ import java.util.UUID;
 @Builder
 public class InventoryHistory {
 
+	// Последовательность с шагом 50 (pooled): id выдаются без обращения к БД на каждую вставку,
+	// что позволяет Hibernate отправлять INSERT-ы кадра одним JDBC-батчем.
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_history_seq")
+	@SequenceGenerator(name = "inventory_history_seq", sequenceName = "inventory_history_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(name = "message_id")
@@ -22,6 +22,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 
 @Repository
@@ -294,4 +295,42 @@ public interface InventoryHistoryRepository extends
 	long countByWarehouseAndStatusAndScannedAtAfter(Warehouse warehouse, InventoryHistoryStatus.InventoryHistoryStatusCode inventoryHistoryStatusCode, LocalDateTime last24Hours);
 
 	boolean existsByLocationAndScannedAtAfter(Location location, LocalDateTime since);
+
+	boolean existsByMessageId(UUID messageId);
+
+	/**
+	 * Число сканов по локациям склада с разбивкой по часам (номер часа от эпохи) начиная с {@code since}.
+	 */
+	@Query(value = """
+        SELECT location_id,
+               CAST(FLOOR(EXTRACT(EPOCH FROM scanned_at) / 3600) AS BIGINT) AS epoch_hour,
+               COUNT(*)
+        FROM inventory_history
+        WHERE warehouse_id = :warehouseId
+          AND scanned_at >= :since
+        GROUP BY location_id, epoch_hour
+        """, nativeQuery = true)
+	List<Object[]> countHourlyScansByLocation(@Param("warehouseId") Long warehouseId,
+											  @Param("since") LocalDateTime since);
+
+	/**
+	 * Последние {@code limit} различных моментов скана для каждой локации склада.
+	 */
+	@Query(value = """
+        SELECT location_id, scanned_at
+        FROM (
+            SELECT location_id, scanned_at,
+                   ROW_NUMBER() OVER (PARTITION BY location_id ORDER BY scanned_at DESC) AS rn
+            FROM (SELECT DISTINCT location_id, scanned_at FROM inventory_history WHERE warehouse_id = :warehouseId) d
+        ) t
+        WHERE rn <= :limit
+        """, nativeQuery = true)
+	List<Object[]> findRecentScanTimesByLocation(@Param("warehouseId") Long warehouseId,
+												 @Param("limit") int limit);
+
+	/**
+	 * Наибольший id записи истории: граница снимка, в котором загружаются метрики локаций.
+	 */
+	@Query(value = "SELECT COALESCE(MAX(id), 0) FROM inventory_history", nativeQuery = true)
+	long findMaxId();
 }
@@ -8,8 +8,11 @@ import ru.rtc.warehouse.warehouse.model.Warehouse;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 public interface InventoryHistoryEntityService extends CrudEntityService<InventoryHistory, Long> {
+	List<InventoryHistory> saveAll(List<InventoryHistory> histories);
+
 	InventoryHistory findByProductSKU(String sku, String warehouseCode);
 	List<InventoryHistory> findAllByWarehouseCodeAndProductCode(String warehouseCode, String productCode);
 
@@ -18,4 +21,6 @@ public interface InventoryHistoryEntityService extends CrudEntityService<Invento
 	long countByWarehouseAndStatusAndScannedAtAfter(Warehouse warehouse, InventoryHistoryStatus.InventoryHistoryStatusCode inventoryHistoryStatusCode, LocalDateTime last24Hours);
 
 	boolean existsByLocationAndScannedAtAfter(Location location, LocalDateTime since);
+
+	boolean existsByMessageId(UUID messageId);
 }
@@ -2,17 +2,20 @@ package ru.rtc.warehouse.inventory.service.adapter;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
 import ru.rtc.warehouse.location.model.Location;
-import ru.rtc.warehouse.location.service.LocationEntityService;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
 
 @Service
 @RequiredArgsConstructor
 public class IHLocationEntServiceAdapter {
 
-	private final LocationEntityService locationService;
+	private final LocationGridIndex locationGridIndex;
 
-	public Location findByCoordinate(Integer zone, Integer row, Integer shelf, Long warehouseId) {
-		return locationService.findByCoordinate(zone, row, shelf, warehouseId);
+	public Location findByCoordinate(Integer zone, Integer row, Integer shelf, Warehouse warehouse) {
+		return locationGridIndex.find(warehouse, zone, row, shelf)
+				.orElseThrow(() -> new NotFoundException("Location not found"));
 	}
 
 }
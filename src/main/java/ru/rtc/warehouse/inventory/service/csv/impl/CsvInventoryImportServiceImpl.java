@@ -2,11 +2,13 @@ package ru.rtc.warehouse.inventory.service.csv.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import ru.rtc.warehouse.exception.InventoryImportException;
 import ru.rtc.warehouse.inventory.controller.dto.request.InventoryCsvDto;
+import ru.rtc.warehouse.inventory.events.InventoryHistoryChangedEvent;
 import ru.rtc.warehouse.inventory.model.InventoryHistory;
 import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus;
 import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
@@ -16,6 +18,7 @@ import ru.rtc.warehouse.inventory.service.adapter.IHProductEntServiceAdapter;
 import ru.rtc.warehouse.inventory.service.adapter.IHWarehouseEntServiceAdapter;
 import ru.rtc.warehouse.inventory.service.csv.CsvProcessingService;
 import ru.rtc.warehouse.inventory.service.csv.InventoryImportService;
+import ru.rtc.warehouse.product.events.ProductChangedEvent;
 import ru.rtc.warehouse.product.model.Product;
 import ru.rtc.warehouse.location.model.Location;
 import ru.rtc.warehouse.warehouse.model.Warehouse;
@@ -35,6 +38,7 @@ public class CsvInventoryImportServiceImpl implements InventoryImportService {
 	private final IHProductEntServiceAdapter productService;
 	private final InventoryHistoryStatusService inventoryHistoryStatusService;
 	private final CsvProcessingService csvProcessingService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Override
 	@Transactional
@@ -47,6 +51,8 @@ public class CsvInventoryImportServiceImpl implements InventoryImportService {
 		for (InventoryCsvDto record : csvRecords) {
 			processInventoryRecord(record, warehouse);
 		}
+		eventPublisher.publishEvent(new InventoryHistoryChangedEvent(this, warehouse.getId()));
+		eventPublisher.publishEvent(new ProductChangedEvent(this, null));
 
 		log.info("Успешно импортировано {} позиций инвентаря для склада: {}", csvRecords.size(), warehouseCode);
 	}
@@ -56,7 +62,7 @@ public class CsvInventoryImportServiceImpl implements InventoryImportService {
 			validateInventoryRecord(record);
 
 			Location location = locationService.findByCoordinate(
-					record.getZone(), record.getRow(), record.getShelf(), warehouse.getId()
+					record.getZone(), record.getRow(), record.getShelf(), warehouse
 			);
 
 			if (location == null) {
@@ -2,9 +2,11 @@ package ru.rtc.warehouse.inventory.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.inventory.events.InventoryHistoryChangedEvent;
 import ru.rtc.warehouse.inventory.model.InventoryHistory;
 import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus;
 import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
@@ -15,6 +17,7 @@ import ru.rtc.warehouse.warehouse.model.Warehouse;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @Service
@@ -22,15 +25,28 @@ import java.util.Optional;
 public class InventoryHistoryEntityServiceImpl implements InventoryHistoryEntityService {
 
 	private final InventoryHistoryRepository inventoryHistoryRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
+	// ручные изменения истории редки и могут переносить запись между товарами/локациями —
+	// индекс последних количеств сбрасывается целиком (после коммита)
 	@Override
 	public InventoryHistory save(InventoryHistory inventoryHistory) {
-		return inventoryHistoryRepository.save(inventoryHistory);
+		InventoryHistory saved = inventoryHistoryRepository.save(inventoryHistory);
+		eventPublisher.publishEvent(new InventoryHistoryChangedEvent(this, null));
+		return saved;
+	}
+
+	// пакетная запись кадров роботов: индекс обновляется приёмом через RobotFrameAppliedEvent
+	@Override
+	public List<InventoryHistory> saveAll(List<InventoryHistory> histories) {
+		return inventoryHistoryRepository.saveAll(histories);
 	}
 
 	@Override
 	public InventoryHistory update(InventoryHistory inventoryHistory) {
-		return inventoryHistoryRepository.save(inventoryHistory);
+		InventoryHistory saved = inventoryHistoryRepository.save(inventoryHistory);
+		eventPublisher.publishEvent(new InventoryHistoryChangedEvent(this, null));
+		return saved;
 	}
 
 	@Override
@@ -47,6 +63,7 @@ public class InventoryHistoryEntityServiceImpl implements InventoryHistoryEntity
 	@Override
 	public void delete(Long id) {
 		inventoryHistoryRepository.deleteById(id);
+		eventPublisher.publishEvent(new InventoryHistoryChangedEvent(this, null));
 	}
 
 	@Override
@@ -75,6 +92,12 @@ public class InventoryHistoryEntityServiceImpl implements InventoryHistoryEntity
 		return inventoryHistoryRepository.existsByLocationAndScannedAtAfter(location, since);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public boolean existsByMessageId(UUID messageId) {
+		return inventoryHistoryRepository.existsByMessageId(messageId);
+	}
+
 	@Transactional(readOnly = true)
 	public InventoryHistory findLatestByProductId(Long productId) {
 		log.info("Finding latest inventory history for product ID: {}", productId);
@@ -0,0 +1,148 @@
+package ru.rtc.warehouse.location.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.location.model.Location;
+import ru.rtc.warehouse.location.repository.LocationRepository;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Плотный индекс координата → id локации для каждого склада.
+ *
+ * <p>Размеры склада фиксированы (zoneMaxSize/rowMaxSize/shelfMaxSize), поэтому сетка хранится плоским
+ * массивом {@code long[]}, индекс ячейки — {@code (zone * rows + row) * shelves + shelf}. Сетка строится
+ * одним запросом при первом обращении и сбрасывается при перегенерации локаций склада.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationGridIndex {
+
+    private final LocationRepository locationRepository;
+
+    private final ConcurrentHashMap<Long, Grid> grids = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает ссылку на локацию по координатам без запроса в БД
+     * (поля прокси загружаются только при обращении к ним).
+     */
+    public Optional<Location> find(Warehouse warehouse, Integer zone, Integer row, Integer shelf) {
+        OptionalLong id = findId(warehouse, zone, row, shelf);
+        return id.isPresent() ? Optional.of(locationRepository.getReferenceById(id.getAsLong())) : Optional.empty();
+    }
+
+    public OptionalLong findId(Warehouse warehouse, Integer zone, Integer row, Integer shelf) {
+        if (zone == null || row == null || shelf == null) {
+            return OptionalLong.empty();
+        }
+        long id = gridFor(warehouse).get(zone, row, shelf);
+        return id == 0 ? OptionalLong.empty() : OptionalLong.of(id);
+    }
+
+    /**
+     * Обходит все локации склада в порядке (zone, row, shelf).
+     */
+    public void forEach(Warehouse warehouse, CellConsumer consumer) {
+        gridFor(warehouse).forEach(consumer);
+    }
+
+    /**
+     * Плотный номер ячейки склада {@code (zone * rows + row) * shelves + shelf} — от 0 до числа ячеек сетки,
+     * в отличие от глобального id локации; -1 — координаты вне размеров склада.
+     */
+    public static int cellIndex(Warehouse warehouse, int zone, int row, int shelf) {
+        return cellIndex(warehouse.getZoneMaxSize(), warehouse.getRowMaxSize(), warehouse.getShelfMaxSize(),
+                zone, row, shelf);
+    }
+
+    private static int cellIndex(int zoneMax, int rowMax, int shelfMax, int zone, int row, int shelf) {
+        if (zone < 0 || zone > zoneMax || row < 0 || row > rowMax || shelf < 0 || shelf > shelfMax) {
+            return -1;
+        }
+        return (zone * (rowMax + 1) + row) * (shelfMax + 1) + shelf;
+    }
+
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(long locationId, int zone, int row, int shelf);
+    }
+
+    public void invalidate(Long warehouseId) {
+        if (grids.remove(warehouseId) != null) {
+            log.debug("Location grid invalidated for warehouse {}", warehouseId);
+        }
+    }
+
+    private Grid gridFor(Warehouse warehouse) {
+        Grid grid = grids.get(warehouse.getId());
+        // размеры могли измениться на другом узле — сетка с другими размерами перестраивается
+        if (grid == null || !grid.matches(warehouse)) {
+            grid = build(warehouse);
+            grids.put(warehouse.getId(), grid);
+        }
+        return grid;
+    }
+
+    private Grid build(Warehouse warehouse) {
+        Grid grid = new Grid(warehouse.getZoneMaxSize(), warehouse.getRowMaxSize(), warehouse.getShelfMaxSize());
+        List<Object[]> rows = locationRepository.findGridByWarehouseId(warehouse.getId());
+        for (Object[] r : rows) {
+            grid.put(((Number) r[1]).intValue(), ((Number) r[2]).intValue(), ((Number) r[3]).intValue(),
+                    ((Number) r[0]).longValue());
+        }
+        log.debug("Location grid built for warehouse {}: {} locations", warehouse.getCode(), rows.size());
+        return grid;
+    }
+
+    private static final class Grid {
+        private final int zoneMax;
+        private final int rowMax;
+        private final int shelfMax;
+        private final long[] ids;
+
+        private Grid(int zoneMax, int rowMax, int shelfMax) {
+            this.zoneMax = zoneMax;
+            this.rowMax = rowMax;
+            this.shelfMax = shelfMax;
+            this.ids = new long[(zoneMax + 1) * (rowMax + 1) * (shelfMax + 1)];
+        }
+
+        private boolean matches(Warehouse warehouse) {
+            return zoneMax == warehouse.getZoneMaxSize()
+                    && rowMax == warehouse.getRowMaxSize()
+                    && shelfMax == warehouse.getShelfMaxSize();
+        }
+
+        private long get(int zone, int row, int shelf) {
+            int idx = index(zone, row, shelf);
+            return idx < 0 ? 0 : ids[idx];
+        }
+
+        private void put(int zone, int row, int shelf, long id) {
+            int idx = index(zone, row, shelf);
+            if (idx >= 0) {
+                ids[idx] = id;
+            }
+        }
+
+        private void forEach(CellConsumer consumer) {
+            for (int idx = 0; idx < ids.length; idx++) {
+                if (ids[idx] != 0) {
+                    int shelf = idx % (shelfMax + 1);
+                    int rest = idx / (shelfMax + 1);
+                    consumer.accept(ids[idx], rest / (rowMax + 1), rest % (rowMax + 1), shelf);
+                }
+            }
+        }
+
+        private int index(int zone, int row, int shelf) {
+            return cellIndex(zoneMax, rowMax, shelfMax, zone, row, shelf);
+        }
+    }
+}
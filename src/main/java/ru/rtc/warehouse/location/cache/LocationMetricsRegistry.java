@@ -0,0 +1,281 @@
+package ru.rtc.warehouse.location.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.rtc.warehouse.config.LocationProperties;
+import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
+import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
+import ru.rtc.warehouse.location.model.LocationStatus;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Инкрементальные метрики локаций: последний скан, число сканов за 24 часа, средний интервал и статус.
+ *
+ * <p>Каждый записанный кадр обновляет состояние локации за O(1): 24 часовые корзины дают скользящий
+ * счётчик за сутки, небольшой отсортированный буфер хранит последние моменты сканов для среднего интервала.
+ * Из БД состояние склада восстанавливается двумя запросами только при первом обращении (холодный старт).</p>
+ *
+ * <p>Загрузка читает историю в одном снимке БД вместе с наибольшим id записи истории. Кадры, чьи записи
+ * не новее этой границы, уже учтены загрузкой, и {@link #record} их пропускает — в том числе кадры,
+ * закоммиченные до загрузки, но доставленные слушателю после неё.</p>
+ *
+ * <p>Снимок всего склада ({@link #snapshotAll}) — один проход по сетке {@link LocationGridIndex}
+ * без запросов к БД.</p>
+ */
+@Slf4j
+@Component
+public class LocationMetricsRegistry {
+
+    private static final int HOURS = 24;
+    private static final int RECENT_SCANS = 5;
+
+    private final InventoryHistoryRepository historyRepository;
+    private final LocationProperties locationProperties;
+    private final LocationGridIndex gridIndex;
+    private final TransactionTemplate hydrationTransaction;
+
+    private final ConcurrentHashMap<Long, WarehouseMetrics> warehouses = new ConcurrentHashMap<>();
+
+    public LocationMetricsRegistry(InventoryHistoryRepository historyRepository, LocationProperties locationProperties,
+                                   LocationGridIndex gridIndex, PlatformTransactionManager transactionManager) {
+        this.historyRepository = historyRepository;
+        this.locationProperties = locationProperties;
+        this.gridIndex = gridIndex;
+        // загрузка вызывается и из слушателей после коммита — отдельной транзакцией, все запросы в одном снимке
+        this.hydrationTransaction = new TransactionTemplate(transactionManager);
+        hydrationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        hydrationTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        hydrationTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Учитывает закоммиченный кадр: {@code scans} записей истории {@code historyIds} в локации
+     * с моментом скана {@code scannedAt}. Кадр, уже попавший в загрузку склада из БД, пропускается.
+     */
+    public void record(Long warehouseId, Long locationId, LocalDateTime scannedAt, int scans, List<Long> historyIds) {
+        WarehouseMetrics metrics = hydrateIfNeeded(warehouseId);
+        if (lastId(historyIds) <= metrics.hydratedUpToId) {
+            return;
+        }
+        long epochSecond = scannedAt.toEpochSecond(ZoneOffset.UTC);
+        metrics.state(locationId).record(epochSecond, scans);
+    }
+
+    public LocationMetricsDTO snapshot(Long warehouseId, String warehouseCode, Long locationId,
+                                       Integer zone, Integer row, Integer shelf) {
+        LocationState state = hydrateIfNeeded(warehouseId).states.get(locationId);
+        return toDto(state, nowEpochSecond(), warehouseCode, zone, row, shelf);
+    }
+
+    /**
+     * Метрики всех локаций склада в порядке (zone, row, shelf).
+     */
+    public List<LocationMetricsDTO> snapshotAll(Warehouse warehouse) {
+        WarehouseMetrics metrics = hydrateIfNeeded(warehouse.getId());
+        long now = nowEpochSecond();
+        List<LocationMetricsDTO> result = new ArrayList<>();
+        gridIndex.forEach(warehouse, (locationId, zone, row, shelf) -> result.add(
+                toDto(metrics.states.get(locationId), now, warehouse.getCode(), zone, row, shelf)));
+        return result;
+    }
+
+    private LocationMetricsDTO toDto(LocationState state, long now, String warehouseCode,
+                                     Integer zone, Integer row, Integer shelf) {
+        LocationMetricsDTO.LocationMetricsDTOBuilder dto = LocationMetricsDTO.builder()
+                .warehouseCode(warehouseCode)
+                .zone(zone)
+                .row(row)
+                .shelf(shelf);
+
+        if (state == null) {
+            // данных по локации нет — статус OLD и пустые метрики
+            return dto.lastScannedAt(null)
+                    .scansCount24h(0)
+                    .avgIntervalMinutes(null)
+                    .minutesSinceLastScan(null)
+                    .status(LocationStatus.LocationStatusCode.OLD.name())
+                    .build();
+        }
+
+        synchronized (state) {
+            long minutesSince = (now - state.lastScan) / 60;
+            String status = LocationStatus.LocationStatusCode.OLD.name();
+            if (minutesSince <= locationProperties.getRecentThresholdMinutes()) {
+                status = LocationStatus.LocationStatusCode.RECENT.name();
+            } else if (minutesSince <= locationProperties.getMediumThresholdMinutes()) {
+                status = LocationStatus.LocationStatusCode.MEDIUM.name();
+            }
+            return dto.lastScannedAt(LocalDateTime.ofEpochSecond(state.lastScan, 0, ZoneOffset.UTC))
+                    .scansCount24h(state.count24h(now))
+                    .avgIntervalMinutes(state.avgIntervalMinutes())
+                    .minutesSinceLastScan(minutesSince)
+                    .status(status)
+                    .build();
+        }
+    }
+
+    private static long nowEpochSecond() {
+        return LocalDateTime.now(ZoneOffset.UTC).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public void invalidate(Long warehouseId) {
+        warehouses.remove(warehouseId);
+    }
+
+    /**
+     * Сбрасывает состояние складов, подходящих под {@code warehouseIds}: при следующем обращении
+     * оно будет заново загружено из БД.
+     */
+    public void invalidateWarehouses(LongPredicate warehouseIds) {
+        warehouses.keySet().removeIf(warehouseIds::test);
+    }
+
+    /**
+     * @return состояние склада, при первом обращении загруженное из БД
+     */
+    private WarehouseMetrics hydrateIfNeeded(Long warehouseId) {
+        WarehouseMetrics metrics = warehouses.computeIfAbsent(warehouseId, id -> new WarehouseMetrics());
+        if (metrics.hydrated) {
+            return metrics;
+        }
+        metrics.hydrationLock.lock();
+        try {
+            if (!metrics.hydrated) {
+                hydrate(warehouseId, metrics);
+                metrics.hydrated = true;
+            }
+            return metrics;
+        } finally {
+            metrics.hydrationLock.unlock();
+        }
+    }
+
+    private void hydrate(Long warehouseId, WarehouseMetrics metrics) {
+        hydrationTransaction.executeWithoutResult(tx -> load(warehouseId, metrics));
+        log.info("Location metrics hydrated for warehouse {}: {} locations", warehouseId, metrics.states.size());
+    }
+
+    private void load(Long warehouseId, WarehouseMetrics metrics) {
+        metrics.hydratedUpToId = historyRepository.findMaxId();
+        LocalDateTime since = LocalDateTime.now(ZoneOffset.UTC).minusHours(HOURS);
+
+        List<Object[]> hourly = historyRepository.countHourlyScansByLocation(warehouseId, since);
+        for (Object[] r : hourly) {
+            LocationState state = metrics.state(((Number) r[0]).longValue());
+            state.addToBucket(((Number) r[1]).longValue(), ((Number) r[2]).intValue());
+        }
+
+        List<Object[]> recent = historyRepository.findRecentScanTimesByLocation(warehouseId, RECENT_SCANS);
+        for (Object[] r : recent) {
+            LocationState state = metrics.state(((Number) r[0]).longValue());
+            state.addRecent(toEpochSecond(r[1]));
+        }
+    }
+
+    /**
+     * Наибольший id записей кадра; кадр без известных id считается новее любой загрузки.
+     */
+    private static long lastId(List<Long> historyIds) {
+        if (historyIds == null || historyIds.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long last = Long.MIN_VALUE;
+        for (Long id : historyIds) {
+            if (id == null) {
+                return Long.MAX_VALUE;
+            }
+            last = Math.max(last, id);
+        }
+        return last;
+    }
+
+    private static long toEpochSecond(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+        }
+        return ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class WarehouseMetrics {
+        private final ConcurrentHashMap<Long, LocationState> states = new ConcurrentHashMap<>();
+        private final ReentrantLock hydrationLock = new ReentrantLock();
+        private volatile boolean hydrated;
+        // наибольший id истории в снимке загрузки: кадры с id не больше уже учтены
+        private long hydratedUpToId;
+
+        private LocationState state(Long locationId) {
+            return states.computeIfAbsent(locationId, id -> new LocationState());
+        }
+    }
+
+    private static final class LocationState {
+        private long lastScan = Long.MIN_VALUE;
+        // корзина i хранит сканы часа bucketHours[i] (номер часа от эпохи), i = hour % 24
+        private final long[] bucketHours = new long[HOURS];
+        private final int[] bucketCounts = new int[HOURS];
+        // последние различные моменты скана (epoch seconds), по убыванию
+        private final long[] recent = new long[RECENT_SCANS];
+        private int recentSize;
+
+        private synchronized void record(long epochSecond, int scans) {
+            addToBucket(Math.floorDiv(epochSecond, 3600), scans);
+            addRecent(epochSecond);
+        }
+
+        private synchronized void addToBucket(long hour, int scans) {
+            int idx = (int) Math.floorMod(hour, HOURS);
+            if (bucketHours[idx] == hour) {
+                bucketCounts[idx] += scans;
+            } else if (bucketHours[idx] < hour) {
+                bucketHours[idx] = hour;
+                bucketCounts[idx] = scans;
+            }
+            // скан старше содержимого корзины (опоздавший более чем на сутки) в счётчик не попадает
+        }
+
+        private synchronized void addRecent(long epochSecond) {
+            lastScan = Math.max(lastScan, epochSecond);
+            int pos = 0;
+            while (pos < recentSize && recent[pos] > epochSecond) {
+                pos++;
+            }
+            if ((pos < recentSize && recent[pos] == epochSecond) || pos == RECENT_SCANS) {
+                return;
+            }
+            int last = Math.min(recentSize, RECENT_SCANS - 1);
+            System.arraycopy(recent, pos, recent, pos + 1, last - pos);
+            recent[pos] = epochSecond;
+            recentSize = Math.min(recentSize + 1, RECENT_SCANS);
+        }
+
+        private int count24h(long nowEpochSecond) {
+            long currentHour = Math.floorDiv(nowEpochSecond, 3600);
+            int total = 0;
+            for (int i = 0; i < HOURS; i++) {
+                if (bucketHours[i] > currentHour - HOURS) {
+                    total += bucketCounts[i];
+                }
+            }
+            return total;
+        }
+
+        private Double avgIntervalMinutes() {
+            if (recentSize < 2) {
+                return null;
+            }
+            return (recent[0] - recent[recentSize - 1]) / 60.0 / (recentSize - 1);
+        }
+    }
+}
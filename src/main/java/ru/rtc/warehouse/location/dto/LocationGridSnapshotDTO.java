@@ -0,0 +1,65 @@
+package ru.rtc.warehouse.location.dto;
+
+import lombok.Getter;
+import ru.rtc.warehouse.location.model.LocationStatus.LocationStatusCode;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактный снимок метрик локаций склада: по массиву на метрику, i-й элемент каждого массива —
+ * одна локация. Для больших сеток заметно короче списка {@link LocationMetricsDTO}.
+ *
+ * <p>{@code lastScannedAt} — секунды эпохи (UTC), {@code -1} — сканов не было; так же {@code -1}
+ * в {@code minutesSinceLastScan}. {@code status} — индекс в {@code statusCodes}.</p>
+ */
+@Getter
+public class LocationGridSnapshotDTO {
+
+    private static final List<String> STATUS_CODES =
+            Arrays.stream(LocationStatusCode.values()).map(Enum::name).toList();
+
+    private final String warehouseCode;
+    private final LocalDateTime generatedAt;
+    private final List<String> statusCodes = STATUS_CODES;
+    private final int[] zone;
+    private final int[] row;
+    private final int[] shelf;
+    private final long[] lastScannedAt;
+    private final int[] scansCount24h;
+    private final Double[] avgIntervalMinutes;
+    private final long[] minutesSinceLastScan;
+    private final int[] status;
+
+    private LocationGridSnapshotDTO(String warehouseCode, int size) {
+        this.warehouseCode = warehouseCode;
+        this.generatedAt = LocalDateTime.now();
+        this.zone = new int[size];
+        this.row = new int[size];
+        this.shelf = new int[size];
+        this.lastScannedAt = new long[size];
+        this.scansCount24h = new int[size];
+        this.avgIntervalMinutes = new Double[size];
+        this.minutesSinceLastScan = new long[size];
+        this.status = new int[size];
+    }
+
+    public static LocationGridSnapshotDTO of(String warehouseCode, List<LocationMetricsDTO> metrics) {
+        LocationGridSnapshotDTO snapshot = new LocationGridSnapshotDTO(warehouseCode, metrics.size());
+        for (int i = 0; i < metrics.size(); i++) {
+            LocationMetricsDTO m = metrics.get(i);
+            snapshot.zone[i] = m.getZone();
+            snapshot.row[i] = m.getRow();
+            snapshot.shelf[i] = m.getShelf();
+            snapshot.lastScannedAt[i] = m.getLastScannedAt() != null
+                    ? m.getLastScannedAt().toEpochSecond(ZoneOffset.UTC) : -1;
+            snapshot.scansCount24h[i] = m.getScansCount24h() != null ? m.getScansCount24h() : 0;
+            snapshot.avgIntervalMinutes[i] = m.getAvgIntervalMinutes();
+            snapshot.minutesSinceLastScan[i] = m.getMinutesSinceLastScan() != null ? m.getMinutesSinceLastScan() : -1;
+            snapshot.status[i] = STATUS_CODES.indexOf(m.getStatus());
+        }
+        return snapshot;
+    }
+}
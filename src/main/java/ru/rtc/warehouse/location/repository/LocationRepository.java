@@ -13,10 +13,15 @@ import java.util.Optional;
 public interface LocationRepository extends JpaRepository<Location, Long> {
 	List<Location> findByWarehouse(Warehouse warehouse);
 
+	long countByWarehouse(Warehouse warehouse);
+
 	@Query("SELECT l FROM location l WHERE l.zone=:zone AND l.row=:row AND l.shelf=:shelf AND l.warehouse.id=:warehouseId")
 	Optional<Location> findByCoordinate(Integer zone, Integer row, Integer shelf, Long warehouseId);
 
 	Optional<Location> findByWarehouseAndZoneAndRowAndShelf(Warehouse warehouse, Integer zone, Integer row,
 			Integer shelf);
+
+	@Query("SELECT l.id, l.zone, l.row, l.shelf FROM location l WHERE l.warehouse.id = :warehouseId")
+	List<Object[]> findGridByWarehouseId(Long warehouseId);
 	
 }
@@ -11,7 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import ru.rtc.warehouse.location.model.Location;
 import ru.rtc.warehouse.location.repository.LocationRepository;
 import ru.rtc.warehouse.location.service.LocationMetricsService;
-import ru.rtc.warehouse.location.service.publisher.LocationTelemetryPublisher;
+import ru.rtc.warehouse.location.service.publisher.LocationTelemetryCoalescer;
 import ru.rtc.warehouse.warehouse.service.WarehouseEntityService;
 
 @Component
@@ -21,7 +21,7 @@ public class LocationDashboardPublisher {
 
     private final LocationRepository locationRepository;
     private final LocationMetricsService metricsService;
-    private final LocationTelemetryPublisher telemetryPublisher;
+    private final LocationTelemetryCoalescer telemetryCoalescer;
     private final WarehouseEntityService warehouseEntityService;
 
     @Scheduled(fixedRateString = "${warehouse.location.heartbeat-millis:600000}")
@@ -31,7 +31,8 @@ public class LocationDashboardPublisher {
         for (Location loc : all) {
             try {
                 var metrics = metricsService.computeFor(loc);
-                telemetryPublisher.publish(metrics);
+                // уходит в ближайшем окне одним сообщением на склад
+                telemetryCoalescer.submit(metrics);
             } catch (Exception e) {
                 log.warn("Failed to publish location {}-{}-{}: {}", loc.getZone(), loc.getRow(), loc.getShelf(), e.getMessage());
             }
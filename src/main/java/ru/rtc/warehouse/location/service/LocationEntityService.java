@@ -10,6 +10,7 @@ public interface LocationEntityService extends CrudEntityService<Location, Long>
 	List<Location> saveAll(List<Location> locations);
 
 	List<Location> findByWarehouse(Warehouse warehouse);
+	long countByWarehouse(Warehouse warehouse);
 	Location findByCoordinate(Integer zone, Integer row, Integer shelf, Long warehouseId);
 
 }
@@ -2,7 +2,12 @@ package ru.rtc.warehouse.location.service;
 
 import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
 import ru.rtc.warehouse.location.model.Location;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
+
+import java.util.List;
 
 public interface LocationMetricsService {
       public LocationMetricsDTO computeFor(Location loc);
+
+      public List<LocationMetricsDTO> computeForWarehouse(Warehouse warehouse);
 }
@@ -7,4 +7,6 @@ import java.util.List;
 
 public interface LocationService {
 	List<Location> generateLocationsForWarehouse(Warehouse warehouse);
+
+	void invalidateLocationIndex(Long warehouseId);
 }
@@ -53,6 +53,11 @@ LocationEntityServiceImpl implements LocationEntityService {
 		return repository.findByWarehouse(warehouse);
 	}
 
+	@Override
+	public long countByWarehouse(Warehouse warehouse) {
+		return repository.countByWarehouse(warehouse);
+	}
+
 	@Override
 	public Location findByCoordinate(Integer zone, Integer row, Integer shelf, Long warehouseId) {
 		return repository.findByCoordinate(zone, row, shelf, warehouseId)
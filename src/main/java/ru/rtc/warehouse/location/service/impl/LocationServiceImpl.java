@@ -3,6 +3,8 @@ package ru.rtc.warehouse.location.service.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
+import ru.rtc.warehouse.location.cache.LocationMetricsRegistry;
 import ru.rtc.warehouse.location.model.Location;
 import ru.rtc.warehouse.location.model.LocationStatus;
 import ru.rtc.warehouse.location.service.LocationEntityService;
@@ -21,6 +23,8 @@ public class LocationServiceImpl implements LocationService {
 
 	private final LocationEntityService locationEntityService;
 	private final LocationStatusEntityService locationStatusEntityService;
+	private final LocationGridIndex locationGridIndex;
+	private final LocationMetricsRegistry locationMetricsRegistry;
 
 	@Transactional
 	public List<Location> generateLocationsForWarehouse(Warehouse warehouse) {
@@ -60,4 +64,10 @@ public class LocationServiceImpl implements LocationService {
 
 		return locationEntityService.saveAll(locations);
 	}
+
+	@Override
+	public void invalidateLocationIndex(Long warehouseId) {
+		locationGridIndex.invalidate(warehouseId);
+		locationMetricsRegistry.invalidate(warehouseId);
+	}
 }
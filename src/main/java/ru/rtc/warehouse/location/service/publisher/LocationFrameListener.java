@@ -0,0 +1,29 @@
+package ru.rtc.warehouse.location.service.publisher;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.location.cache.LocationMetricsRegistry;
+import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+
+/**
+ * Обновляет метрики локации по записанному кадру робота и ставит их в очередь публикации на дашборд.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationFrameListener {
+
+    private final LocationMetricsRegistry metricsRegistry;
+    private final LocationTelemetryCoalescer telemetryCoalescer;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFrameApplied(RobotFrameAppliedEvent event) {
+        metricsRegistry.record(event.getWarehouseId(), event.getLocationId(), event.getScannedAt(),
+                event.getItems().size(), event.getHistoryIds());
+        LocationMetricsDTO metrics = metricsRegistry.snapshot(event.getWarehouseId(), event.getWarehouseCode(),
+                event.getLocationId(), event.getZone(), event.getRow(), event.getShelf());
+        telemetryCoalescer.submit(metrics);
+    }
+}
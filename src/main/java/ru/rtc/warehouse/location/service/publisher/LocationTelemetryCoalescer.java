@@ -0,0 +1,58 @@
+package ru.rtc.warehouse.location.service.publisher;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Склеивает обновления метрик локаций в пределах окна {@code warehouse.location.publish-window-millis}:
+ * по каждой локации остаётся только последнее значение, и раз в окно по каждому складу уходит одно
+ * сообщение {@code location_batch_update} и один пайплайн записи ключей.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationTelemetryCoalescer {
+
+    private final LocationTelemetryPublisher telemetryPublisher;
+
+    private final ConcurrentHashMap<LocationKey, LocationMetricsDTO> pending = new ConcurrentHashMap<>();
+
+    public void submit(LocationMetricsDTO metrics) {
+        pending.put(new LocationKey(metrics.getWarehouseCode(), metrics.getZone(), metrics.getRow(), metrics.getShelf()),
+                metrics);
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.location.publish-window-millis:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, List<LocationMetricsDTO>> byWarehouse = new HashMap<>();
+        for (Map.Entry<LocationKey, LocationMetricsDTO> e : pending.entrySet()) {
+            // удаляем только то значение, которое отправляем: более свежее уйдёт в следующем окне
+            if (pending.remove(e.getKey(), e.getValue())) {
+                byWarehouse.computeIfAbsent(e.getKey().warehouseCode(), k -> new ArrayList<>()).add(e.getValue());
+            }
+        }
+        byWarehouse.forEach((warehouseCode, metrics) -> {
+            try {
+                telemetryPublisher.publishBatch(warehouseCode, metrics);
+            } catch (Exception ex) {
+                log.warn("Failed to publish {} location update(s) for warehouse {}: {}",
+                        metrics.size(), warehouseCode, ex.getMessage());
+            }
+        });
+    }
+
+    private record LocationKey(String warehouseCode, Integer zone, Integer row, Integer shelf) {
+    }
+}
@@ -4,11 +4,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import ru.rtc.warehouse.config.RobotProperties;
+import ru.rtc.warehouse.config.messaging.RobotChannelCodec;
 import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -17,15 +22,14 @@ public class LocationTelemetryPublisher {
 
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
-    private final RobotProperties robotProperties;
+    private final RobotChannelCodec channelCodec;
 
     private final Duration CACHE_TTL = Duration.ofHours(6);
 
     public void publish(LocationMetricsDTO dto) {
         try {
             Map<String,Object> payload = Map.of("type", "location_update", "data", dto);
-            String json = objectMapper.writeValueAsString(payload);
-            redisTemplate.convertAndSend(robotProperties.getRedisChannel(), json);
+            channelCodec.publish(redisTemplate, payload);
 
             String key = buildCacheKey(dto.getWarehouseCode(), dto.getZone(), dto.getRow(), dto.getShelf());
             redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(dto), CACHE_TTL);
@@ -34,12 +38,41 @@ public class LocationTelemetryPublisher {
         }
     }
 
-    public static String buildCacheKey(String whCode, Integer zone, Integer row, Integer shelf) {
-        return String.format("warehouse:%s:location:%d:%d:%d:metrics", whCode, zone, row, shelf);
+    /**
+     * Публикует метрики нескольких локаций склада одним сообщением {@code location_batch_update}
+     * и записывает их ключи одним пайплайном.
+     */
+    public void publishBatch(String warehouseCode, Collection<LocationMetricsDTO> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Object> payload = Map.of("type", "location_batch_update",
+                    "data", Map.of("warehouseCode", warehouseCode, "locations", metrics));
+            byte[] message = channelCodec.encode(payload);
+            byte[] channel = channelCodec.channel();
+
+            List<String[]> entries = new ArrayList<>(metrics.size());
+            for (LocationMetricsDTO dto : metrics) {
+                entries.add(new String[]{
+                        buildCacheKey(dto.getWarehouseCode(), dto.getZone(), dto.getRow(), dto.getShelf()),
+                        objectMapper.writeValueAsString(dto)});
+            }
+            long ttlSeconds = CACHE_TTL.getSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.publish(channel, message);
+                for (String[] e : entries) {
+                    conn.setEx(e[0], ttlSeconds, e[1]);
+                }
+                return null;
+            });
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    // optionally: helper to build aggregated snapshot key
-    public static String snapshotKey(String whCode) {
-        return String.format("warehouse:%s:locations:snapshot", whCode);
+    public static String buildCacheKey(String whCode, Integer zone, Integer row, Integer shelf) {
+        return String.format("warehouse:%s:location:%d:%d:%d:metrics", whCode, zone, row, shelf);
     }
 }
@@ -0,0 +1,97 @@
+package ru.rtc.warehouse.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.product.events.ProductChangedEvent;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш разрешения SKU на приёме кадров: (warehouseId, code) → id товара.
+ *
+ * <p>Неизвестные коды тоже кэшируются (с коротким TTL), чтобы кадр с незаведённым товаром
+ * не повторял оба запроса поиска. Сбрасывается после коммита изменения/удаления товаров и CSV-импорта
+ * ({@link ProductChangedEvent}): до коммита загрузка из другой транзакции вернула бы в кэш прежний id
+ * или его отсутствие.</p>
+ */
+@Component
+public class ProductCodeCache {
+
+    private final Cache<Key, OptionalLong> cache;
+    // растёт при каждом сбросе: загрузка, начатая до сброса, не оставляет в кэше устаревший id
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCodeCache(
+            @Value("${warehouse.product.code-cache-size:50000}") long maximumSize,
+            @Value("${warehouse.product.code-cache-ttl:PT1H}") Duration ttl,
+            @Value("${warehouse.product.code-cache-negative-ttl:PT1M}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Key, OptionalLong>() {
+                    @Override
+                    public long expireAfterCreate(Key key, OptionalLong value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, OptionalLong value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, OptionalLong value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Возвращает id товара по коду, при промахе разрешает его через {@code loader}.
+     * Загрузка идёт вне mapping-функции Caffeine.
+     */
+    public OptionalLong get(Long warehouseId, String code, Supplier<OptionalLong> loader) {
+        Key key = new Key(warehouseId, code);
+        OptionalLong cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = invalidations.get();
+        OptionalLong loaded = loader.get();
+        cache.put(key, loaded);
+        if (invalidations.get() != generation) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getCode() != null) {
+            invalidateCode(event.getCode());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateCode(String code) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(k -> k.code.equals(code));
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private record Key(Long warehouseId, String code) {
+    }
+}
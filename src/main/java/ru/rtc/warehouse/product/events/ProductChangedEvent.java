@@ -0,0 +1,18 @@
+package ru.rtc.warehouse.product.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Событие: товары заведены, изменены или удалены. {@code code == null} — затронуты все коды
+ * (смена кода, удаление по id, CSV-импорт).
+ */
+@Getter
+public class ProductChangedEvent extends ApplicationEvent {
+	private final String code;
+
+	public ProductChangedEvent(Object source, String code) {
+		super(source);
+		this.code = code;
+	}
+}
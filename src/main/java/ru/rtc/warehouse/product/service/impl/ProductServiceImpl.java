@@ -1,9 +1,11 @@
 package ru.rtc.warehouse.product.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.rtc.warehouse.product.controller.dto.request.ProductCreateRequest;
 import ru.rtc.warehouse.product.controller.dto.request.ProductUpdateRequest;
+import ru.rtc.warehouse.product.events.ProductChangedEvent;
 import ru.rtc.warehouse.product.mapper.ProductMapper;
 import ru.rtc.warehouse.product.model.Product;
 import ru.rtc.warehouse.product.service.ProductEntityService;
@@ -18,11 +20,13 @@ public class ProductServiceImpl implements ProductService {
 
 	private final ProductEntityService productEntityService;
 	private final ProductMapper productMapper;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Override
 	public void save(ProductCreateRequest productCreateRequest) {
 		Product product = productMapper.toEntity(productCreateRequest);
 		productEntityService.save(product);
+		eventPublisher.publishEvent(new ProductChangedEvent(this, product.getCode()));
 	}
 
 	@Override
@@ -43,6 +47,8 @@ public class ProductServiceImpl implements ProductService {
 		if (optimalStock != null) product.setOptimalStock(optimalStock);
 
 		productEntityService.update(product);
+		// код товара мог смениться — сбрасываются и старый, и новый ключи
+		eventPublisher.publishEvent(new ProductChangedEvent(this, null));
 	}
 
 	@Override
@@ -63,6 +69,7 @@ public class ProductServiceImpl implements ProductService {
 	@Override
 	public void delete(Long id) {
 		productEntityService.delete(id);
+		eventPublisher.publishEvent(new ProductChangedEvent(this, null));
 	}
 
 
@@ -0,0 +1,147 @@
+package ru.rtc.warehouse.robot.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotAdmissionProperties;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Допуск вызовов телеметрии роботов: token bucket на робота (отдельно для кадров и heartbeat-ов)
+ * и на склад, плюс сброс новых кадров, когда очередь приёма ({@link RobotIngestService#backlog()})
+ * превысила порог.
+ *
+ * <p>Корзины живут в памяти узла и удаляются после простоя; при нескольких узлах лимит действует
+ * на каждый узел отдельно.</p>
+ */
+@Slf4j
+@Component
+public class RobotAdmissionControl {
+
+    public enum Endpoint {
+        DATA,
+        STATUS
+    }
+
+    public enum Verdict {
+        ADMITTED,
+        ROBOT_LIMITED,
+        WAREHOUSE_LIMITED,
+        SHED
+    }
+
+    /**
+     * Решение по вызову; {@code retryAfterSeconds} имеет смысл для отказов.
+     */
+    public record Decision(Verdict verdict, long retryAfterSeconds) {
+
+        static final Decision ADMIT = new Decision(Verdict.ADMITTED, 0);
+
+        public boolean admitted() {
+            return verdict == Verdict.ADMITTED;
+        }
+    }
+
+    private final RobotAdmissionProperties properties;
+    private final RobotIngestService ingestService;
+    private final IngestPartitioner partitioner;
+
+    private final Map<Endpoint, Cache<String, TokenBucket>> robotBuckets = new EnumMap<>(Endpoint.class);
+    private final Cache<Long, TokenBucket> warehouseBuckets;
+    private final Map<Endpoint, Map<Verdict, Counter>> counters = new EnumMap<>(Endpoint.class);
+
+    public RobotAdmissionControl(RobotAdmissionProperties properties, RobotIngestService ingestService,
+                                 IngestPartitioner partitioner, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ingestService = ingestService;
+        this.partitioner = partitioner;
+        for (Endpoint endpoint : Endpoint.values()) {
+            robotBuckets.put(endpoint, newCache());
+            Map<Verdict, Counter> byVerdict = new EnumMap<>(Verdict.class);
+            for (Verdict verdict : Verdict.values()) {
+                byVerdict.put(verdict, Counter.builder("robot.admission.requests")
+                        .description("Robot telemetry calls by admission verdict")
+                        .tag("endpoint", endpoint.name().toLowerCase())
+                        .tag("verdict", verdict.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            counters.put(endpoint, byVerdict);
+        }
+        this.warehouseBuckets = newCache();
+        Gauge.builder("robot.ingest.backlog", ingestService, RobotIngestService::backlog)
+                .description("Accepted robot frames waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    public Decision admit(String robotCode, Endpoint endpoint) {
+        Decision decision = decide(robotCode, endpoint);
+        counters.get(endpoint).get(decision.verdict()).increment();
+        return decision;
+    }
+
+    private Decision decide(String robotCode, Endpoint endpoint) {
+        if (!properties.isEnabled()) {
+            return Decision.ADMIT;
+        }
+        // heartbeat-ы ничего не ставят в очередь и при перегрузке не сбрасываются
+        if (endpoint == Endpoint.DATA && ingestService.backlog() >= properties.getShedBacklog()) {
+            return new Decision(Verdict.SHED, properties.getShedRetryAfterSeconds());
+        }
+
+        long now = System.nanoTime();
+        TokenBucket robotBucket = robotBuckets.get(endpoint).get(robotCode, code -> robotBucket(endpoint));
+        long wait = robotBucket.tryAcquire(now);
+        if (wait > 0) {
+            return new Decision(Verdict.ROBOT_LIMITED, toRetryAfterSeconds(wait));
+        }
+
+        long warehouseId = warehouseOf(robotCode);
+        if (warehouseId != 0) {
+            wait = warehouseBuckets.get(warehouseId, id ->
+                    new TokenBucket(properties.getWarehouseRate(), properties.getWarehouseBurst())).tryAcquire(now);
+            if (wait > 0) {
+                // отклонённый складом вызов не расходует лимит робота: иначе робот, повторяющий запрос
+                // по Retry-After склада, упрётся ещё и в свой лимит
+                robotBucket.refund();
+                return new Decision(Verdict.WAREHOUSE_LIMITED, toRetryAfterSeconds(wait));
+            }
+        }
+        return Decision.ADMIT;
+    }
+
+    private long warehouseOf(String robotCode) {
+        try {
+            return partitioner.warehouseOf(robotCode);
+        } catch (RuntimeException e) {
+            // неизвестный робот — лимит склада не применяется, запрос отклонит сам обработчик
+            log.debug("No warehouse for robot {}: {}", robotCode, e.getMessage());
+            return 0;
+        }
+    }
+
+    private TokenBucket robotBucket(Endpoint endpoint) {
+        return endpoint == Endpoint.DATA
+                ? new TokenBucket(properties.getRobotDataRate(), properties.getRobotDataBurst())
+                : new TokenBucket(properties.getRobotStatusRate(), properties.getRobotStatusBurst());
+    }
+
+    private <K> Cache<K, TokenBucket> newCache() {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleExpiry())
+                .maximumSize(100_000)
+                .build();
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,87 @@
+package ru.rtc.warehouse.robot.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.rtc.warehouse.exception.response.ErrorResponse;
+import ru.rtc.warehouse.robot.admission.RobotAdmissionControl.Decision;
+import ru.rtc.warehouse.robot.admission.RobotAdmissionControl.Endpoint;
+
+import java.io.IOException;
+
+/**
+ * Допуск телеметрии роботов; стоит после {@code RobotTokenAuthenticationFilter}, поэтому код робота
+ * берётся из уже установленной аутентификации. Превышение лимита — 429, сброс нагрузки — 503,
+ * оба с Retry-After.
+ */
+@RequiredArgsConstructor
+public class RobotAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String ROBOT_ROLE = "ROLE_ROBOT";
+
+    private final RobotAdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()
+                || auth.getAuthorities().stream().noneMatch(a -> ROBOT_ROLE.equals(a.getAuthority()))) {
+            // не робот — решает авторизация дальше по цепочке
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Decision decision = admissionControl.admit(auth.getName(), endpoint(request));
+        if (decision.admitted()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpStatus status = decision.verdict() == RobotAdmissionControl.Verdict.SHED
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.TOO_MANY_REQUESTS;
+        String message = switch (decision.verdict()) {
+            case ROBOT_LIMITED -> "Robot request rate exceeded, retry later";
+            case WAREHOUSE_LIMITED -> "Warehouse request rate exceeded, retry later";
+            default -> "Ingest backlog is full, retry later";
+        };
+        ErrorResponse body = ErrorResponse.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path("uri=" + request.getRequestURI())
+                .build();
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static Endpoint endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (path) {
+            case "/api/robots/data", "/api/robots/data/bulk" -> Endpoint.DATA;
+            case "/api/robots/status" -> Endpoint.STATUS;
+            default -> null;
+        };
+    }
+}
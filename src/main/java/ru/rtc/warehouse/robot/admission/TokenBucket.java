@@ -0,0 +1,51 @@
+package ru.rtc.warehouse.robot.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket без блокировок в форме GCRA: состояние — одно «теоретическое время прибытия» (TAT)
+ * в наносекундах, обновляемое CAS.
+ *
+ * <p>Корзина на {@code burst} токенов, пополняемая со скоростью {@code ratePerSecond}: запрос пропускается,
+ * если TAT опережает текущее время не больше чем на {@code (burst - 1)} интервалов пополнения.</p>
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Token bucket needs a positive rate and burst");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+    }
+
+    /**
+     * Пытается взять токен.
+     *
+     * @return 0, если токен выдан, иначе сколько наносекунд ждать следующего
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long base = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long wait = base - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Возвращает токен, выданный {@link #tryAcquire(long)}, если запрос всё же не был пропущен.
+     */
+    public void refund() {
+        tat.getAndUpdate(current -> current == Long.MIN_VALUE ? current : current - intervalNanos);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.rtc.warehouse.robot.cache;
+
+import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Оперативное состояние робота: заряд, время и локация последнего кадра, статус последнего heartbeat.
+ * Поля, о которых ещё ничего не известно, равны {@code null}.
+ */
+public record RobotLiveState(String robotCode, String warehouseCode, Integer batteryLevel, LocalDateTime lastUpdate,
+                             Long locationId, Integer zone, Integer row, Integer shelf,
+                             StatusCode status, LocalDateTime statusAt) {
+
+    static RobotLiveState empty(String robotCode) {
+        return new RobotLiveState(robotCode, null, null, null, null, null, null, null, null, null);
+    }
+
+    boolean hasNewerFrameThan(LocalDateTime scannedAt) {
+        return lastUpdate != null && scannedAt != null && lastUpdate.isAfter(scannedAt);
+    }
+
+    RobotLiveState withFrame(String warehouseCode, Integer batteryLevel, LocalDateTime scannedAt,
+                             Long locationId, int zone, int row, int shelf) {
+        return new RobotLiveState(robotCode, warehouseCode, batteryLevel, scannedAt, locationId, zone, row, shelf,
+                status, statusAt);
+    }
+
+    RobotLiveState withHeartbeat(StatusCode status, Integer batteryLevel, LocalDateTime at) {
+        return new RobotLiveState(robotCode, warehouseCode, batteryLevel != null ? batteryLevel : this.batteryLevel,
+                lastUpdate, locationId, zone, row, shelf, status, at);
+    }
+
+    /**
+     * Поля, ещё неизвестные в этом состоянии, берутся из {@code base}.
+     */
+    RobotLiveState orElse(RobotLiveState base) {
+        return new RobotLiveState(robotCode,
+                warehouseCode != null ? warehouseCode : base.warehouseCode,
+                batteryLevel != null ? batteryLevel : base.batteryLevel,
+                lastUpdate != null ? lastUpdate : base.lastUpdate,
+                locationId != null ? locationId : base.locationId,
+                zone != null ? zone : base.zone,
+                row != null ? row : base.row,
+                shelf != null ? shelf : base.shelf,
+                status != null ? status : base.status,
+                statusAt != null ? statusAt : base.statusAt);
+    }
+}
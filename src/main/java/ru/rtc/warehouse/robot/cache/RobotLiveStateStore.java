@@ -0,0 +1,185 @@
+package ru.rtc.warehouse.robot.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.robot.events.RobotChangedEvent;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+import ru.rtc.warehouse.robot.model.Robot;
+import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Write-behind хранилище оперативных полей робота: battery_level, last_update, location_id и статус.
+ *
+ * <p>Кадр больше не обновляет строку robots в своей транзакции: состояние фиксируется здесь после коммита
+ * кадра и является источником истины для дашбордов. Изменённые роботы раз в
+ * {@code warehouse.robot.state-flush-millis} пишутся в robots одним батчем UPDATE. Инстанс, не применявший
+ * кадры робота, видит строку robots, отстающую не больше чем на этот период.</p>
+ *
+ * <p>Heartbeat-ы /api/robots/status сворачиваются в то же состояние: в БД уходит только смена статуса,
+ * повторяющийся статус ничего не пишет.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RobotLiveStateStore {
+
+    // условие по last_update не даёт записи с другого инстанса откатить более свежее состояние
+    private static final String UPDATE_FRAME_SQL = "UPDATE robots SET battery_level = ?, last_update = ?, location_id = ? "
+            + "WHERE robot_code = ? AND (last_update IS NULL OR last_update <= ?)";
+    private static final String UPDATE_STATUS_SQL = "UPDATE robots SET status_id = "
+            + "(SELECT id FROM robot_status WHERE code = ?) WHERE robot_code = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, RobotLiveState> states = new ConcurrentHashMap<>();
+    private final Set<String> frameDirty = ConcurrentHashMap.newKeySet();
+    private final Set<String> statusDirty = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFrameApplied(RobotFrameAppliedEvent event) {
+        boolean[] applied = new boolean[1];
+        states.compute(event.getRobotCode(), (code, current) -> {
+            RobotLiveState base = current != null ? current : RobotLiveState.empty(code);
+            // кадры могут приходить не по порядку — более старый кадр состояние не откатывает
+            if (base.hasNewerFrameThan(event.getScannedAt())) {
+                return base;
+            }
+            applied[0] = true;
+            return base.withFrame(event.getWarehouseCode(), event.getBatteryLevel(), event.getScannedAt(),
+                    event.getLocationId(), event.getZone(), event.getRow(), event.getShelf());
+        });
+        if (applied[0]) {
+            frameDirty.add(event.getRobotCode());
+        }
+    }
+
+    /**
+     * Заполняет неизвестные поля состояния (склад, статус) из строки robots. Вызывается один раз,
+     * до первого heartbeat робота, чтобы смена статуса считалась относительно БД.
+     */
+    public void seed(Robot robot) {
+        RobotLiveState fromRow = fromEntity(robot);
+        states.merge(robot.getCode(), fromRow, RobotLiveState::orElse);
+    }
+
+    public boolean isSeeded(String robotCode) {
+        RobotLiveState state = states.get(robotCode);
+        return state != null && state.status() != null && state.warehouseCode() != null;
+    }
+
+    /**
+     * Сворачивает heartbeat в состояние.
+     *
+     * @return true, если изменился статус или заряд (есть что публиковать в realtime-метрики)
+     */
+    public boolean recordHeartbeat(String robotCode, StatusCode status, Integer batteryLevel, LocalDateTime at) {
+        boolean[] changed = new boolean[2];
+        states.compute(robotCode, (code, current) -> {
+            RobotLiveState base = current != null ? current : RobotLiveState.empty(code);
+            if (base.statusAt() != null && at.isBefore(base.statusAt())) {
+                return base;
+            }
+            changed[0] = base.status() != status;
+            changed[1] = batteryLevel != null && !batteryLevel.equals(base.batteryLevel());
+            return base.withHeartbeat(status, batteryLevel, at);
+        });
+        if (changed[0]) {
+            statusDirty.add(robotCode);
+        }
+        return changed[0] || changed[1];
+    }
+
+    public Optional<RobotLiveState> find(String robotCode) {
+        return Optional.ofNullable(states.get(robotCode));
+    }
+
+    /**
+     * Состояние робота для чтения: оперативные поля поверх строки robots.
+     */
+    public RobotLiveState view(Robot robot) {
+        RobotLiveState live = states.get(robot.getCode());
+        RobotLiveState fromRow = fromEntity(robot);
+        return live != null ? live.orElse(fromRow) : fromRow;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRobotChanged(RobotChangedEvent event) {
+        forget(event.getRobotCode());
+    }
+
+    public void forget(String robotCode) {
+        states.remove(robotCode);
+        frameDirty.remove(robotCode);
+        statusDirty.remove(robotCode);
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.robot.state-flush-millis:5000}")
+    public void flush() {
+        flushBatch(frameDirty, UPDATE_FRAME_SQL, s -> {
+            Timestamp lastUpdate = s.lastUpdate() != null ? Timestamp.valueOf(s.lastUpdate()) : null;
+            return new Object[]{s.batteryLevel(), lastUpdate, s.locationId(), s.robotCode(), lastUpdate};
+        });
+        flushBatch(statusDirty, UPDATE_STATUS_SQL, s -> new Object[]{s.status().name(), s.robotCode()});
+    }
+
+    private void flushBatch(Set<String> dirty, String sql, Function<RobotLiveState, Object[]> row) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> codes = new ArrayList<>(dirty.size());
+        List<Object[]> args = new ArrayList<>(dirty.size());
+        for (String code : List.copyOf(dirty)) {
+            // снимаем метку до чтения: обновление во время flush снова пометит робота
+            dirty.remove(code);
+            RobotLiveState s = states.get(code);
+            if (s == null) {
+                continue;
+            }
+            codes.add(code);
+            args.add(row.apply(s));
+        }
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, args);
+            log.debug("Flushed live state of {} robot(s)", args.size());
+        } catch (Exception e) {
+            dirty.addAll(codes);
+            log.warn("Failed to flush live state of {} robot(s), will retry: {}", codes.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static RobotLiveState fromEntity(Robot robot) {
+        return new RobotLiveState(robot.getCode(),
+                robot.getWarehouse() != null ? robot.getWarehouse().getCode() : null,
+                robot.getBatteryLevel(),
+                robot.getLastUpdate(),
+                robot.getLocation() != null ? robot.getLocation().getId() : null,
+                robot.getLocation() != null ? robot.getLocation().getZone() : null,
+                robot.getLocation() != null ? robot.getLocation().getRow() : null,
+                robot.getLocation() != null ? robot.getLocation().getShelf() : null,
+                robot.getStatus() != null ? robot.getStatus().getCode() : null,
+                null);
+    }
+}
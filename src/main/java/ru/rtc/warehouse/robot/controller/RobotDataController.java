@@ -1,27 +1,46 @@
 package ru.rtc.warehouse.robot.controller;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
-import ru.rtc.warehouse.robot.service.RobotDataService;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse;
+import ru.rtc.warehouse.robot.service.RobotBulkIngestService;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
 import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
 
+import java.io.IOException;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/robots")
 public class RobotDataController {
 
-    private final RobotDataService robotDataService;
+    private final RobotIngestService robotIngestService;
+    private final RobotBulkIngestService robotBulkIngestService;
 
     @PostMapping("/data")
     @PreAuthorize("hasRole('ROBOT') and #request.code == authentication.name")
     public ResponseEntity<RobotDataResponse> receiveData(@Valid @RequestBody RobotDataRequest request) {
-        RobotDataResponse resp = robotDataService.processRobotData(request);
+        RobotDataResponse resp = robotIngestService.accept(request);
+        return ResponseEntity.ok(resp);
+    }
+
+    /**
+     * Приём буфера кадров, накопленного роботом без связи: тело — NDJSON, по одному RobotDataRequest на строку.
+     */
+    @PostMapping(value = "/data/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ROBOT')")
+    public ResponseEntity<RobotBulkDataResponse> receiveBulk(HttpServletRequest request,
+                                                             Authentication authentication) throws IOException {
+        RobotBulkDataResponse resp = robotBulkIngestService.ingest(request.getInputStream(), authentication.getName());
         return ResponseEntity.ok(resp);
     }
 
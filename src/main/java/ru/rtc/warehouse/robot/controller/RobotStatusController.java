@@ -31,6 +31,9 @@ public class RobotStatusController {
         try {
             telemetryService.publishStatus(request);
             return ResponseEntity.ok(Map.of("status", "received"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", e.getMessage()));
         } catch (Exception e) {
             log.error("Failed to publish robot status", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
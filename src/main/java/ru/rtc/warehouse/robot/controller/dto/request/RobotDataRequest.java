@@ -44,4 +44,8 @@ public class RobotDataRequest {
     @NotBlank
     private String nextCheckpoint;
 
+    // необязательный идентификатор кадра от робота: переотправка с тем же frameId не создаёт дублей
+    @Size(max = 64)
+    private String frameId;
+
 }
@@ -0,0 +1,41 @@
+package ru.rtc.warehouse.robot.controller.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class RobotBulkDataResponse {
+    private int received; // кадры со статусом received/accepted/duplicate
+    private int failed;
+    private List<FrameResult> results;
+
+    /**
+     * Результат одного кадра NDJSON-потока; {@code index} — номер строки кадра начиная с 0.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class FrameResult {
+        private int index;
+        private String status; // "received" | "accepted" | "duplicate" | "invalid" | "forbidden" | "rejected" | "overloaded" | "failed"
+        private List<UUID> messageId;
+        private String error;
+
+        public static FrameResult of(RobotDataResponse response) {
+            return new FrameResult(-1, response.getStatus(), response.getMessageId(), null);
+        }
+
+        public static FrameResult error(String status, String error) {
+            return new FrameResult(-1, status, null, error);
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
+}
@@ -9,7 +9,7 @@ import lombok.Getter;
 @Getter
 @AllArgsConstructor
 public class RobotDataResponse {
-    private String status; // "received"
+    private String status; // "received" | "accepted" | "duplicate"
     private List<UUID> messageId; // ID InventoryHistory
 }
 
@@ -0,0 +1,18 @@
+package ru.rtc.warehouse.robot.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Событие: робот изменён вручную или удалён — его оперативное состояние больше не актуально.
+ */
+@Getter
+public class RobotChangedEvent extends ApplicationEvent {
+
+    private final String robotCode;
+
+    public RobotChangedEvent(Object source, String robotCode) {
+        super(source);
+        this.robotCode = robotCode;
+    }
+}
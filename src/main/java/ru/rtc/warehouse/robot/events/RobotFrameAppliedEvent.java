@@ -0,0 +1,71 @@
+package ru.rtc.warehouse.robot.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Событие: кадр робота (позиция, заряд, сканы одной локации) записан в БД.
+ *
+ * <p>Содержит только примитивный снимок данных кадра, без JPA-сущностей, поэтому
+ * безопасно обрабатывается после коммита и вне сессии Hibernate.</p>
+ */
+@Getter
+public class RobotFrameAppliedEvent extends ApplicationEvent {
+
+    private final String robotCode;
+    private final Long warehouseId;
+    private final String warehouseCode;
+    private final Long locationId;
+    private final int zone;
+    private final int row;
+    private final int shelf;
+    // плотный номер ячейки склада (LocationGridIndex.cellIndex)
+    private final int locationCell;
+    private final Integer batteryLevel;
+    private final String nextCheckpoint;
+    private final LocalDateTime scannedAt;
+    private final List<Item> items;
+    // id записей inventory_history кадра
+    private final List<Long> historyIds;
+
+    public RobotFrameAppliedEvent(Object source, String robotCode, Long warehouseId, String warehouseCode,
+                                  Long locationId, int zone, int row, int shelf, int locationCell, Integer batteryLevel,
+                                  String nextCheckpoint, LocalDateTime scannedAt, List<Item> items,
+                                  List<Long> historyIds) {
+        super(source);
+        this.robotCode = robotCode;
+        this.warehouseId = warehouseId;
+        this.warehouseCode = warehouseCode;
+        this.locationId = locationId;
+        this.zone = zone;
+        this.row = row;
+        this.shelf = shelf;
+        this.locationCell = locationCell;
+        this.batteryLevel = batteryLevel;
+        this.nextCheckpoint = nextCheckpoint;
+        this.scannedAt = scannedAt;
+        this.items = items;
+        this.historyIds = historyIds;
+    }
+
+    /**
+     * Один скан кадра в том виде, в каком он записан в inventory_history.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Item {
+        private final Long productId;
+        private final String productCode;
+        private final String productName;
+        private final Integer quantity;
+        private final Integer expectedQuantity;
+        private final Integer difference;
+        private final String statusCode;
+        private final UUID messageId;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Кадр робота в журнале приёма: messageIds выдаются при приёме и используются при вставке
+ * истории, поэтому повторная обработка того же кадра после сбоя не создаёт дублей.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestEnvelope {
+    private List<UUID> messageIds;
+    private RobotDataRequest request;
+    private Instant receivedAt;
+}
@@ -0,0 +1,285 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Локальный журнал принятых кадров (append-only сегменты на диске).
+ *
+ * <p>Формат записи: {@code [int length][int crc32][payload]}. Запись считается принятой после
+ * {@link #append(byte[])}; после успешной обработки вызывается {@link #acknowledge(Entry)}.
+ * Закрытый сегмент, все записи которого подтверждены, удаляется. При старте {@link #open()}
+ * возвращает все записи оставшихся сегментов для повторной обработки; недописанный хвост
+ * (обрыв при падении процесса) отбрасывается.</p>
+ */
+@Slf4j
+public class IngestJournal implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ingest-(\\d{12})\\.log");
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final boolean fsync;
+
+    // ReentrantLock, а не synchronized: запись и fsync под монитором закрепляли бы виртуальный поток за носителем
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentHashMap<Long, Segment> segments = new ConcurrentHashMap<>();
+    private Segment active;
+
+    public IngestJournal(Path directory, long segmentMaxBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Открывает журнал: читает оставшиеся сегменты и создаёт новый активный сегмент.
+     *
+     * @return неподтверждённые записи в порядке их добавления
+     */
+    public List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        List<Entry> pending = new ArrayList<>();
+        long lastId = 0;
+        for (Path file : files) {
+            Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+            m.matches();
+            long id = Long.parseLong(m.group(1));
+            lastId = Math.max(lastId, id);
+
+            Segment segment = new Segment(id, file);
+            List<byte[]> records = readSegment(file);
+            if (records.isEmpty()) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            segment.appended.set(records.size());
+            segment.sealed = true;
+            segments.put(id, segment);
+            for (byte[] payload : records) {
+                pending.add(new Entry(segment, payload));
+            }
+        }
+
+        appendLock.lock();
+        try {
+            active = createSegment(lastId + 1);
+        } finally {
+            appendLock.unlock();
+        }
+        if (!pending.isEmpty()) {
+            log.info("Ingest journal {}: {} unacknowledged frame(s) in {} segment(s) to replay",
+                    directory, pending.size(), segments.size() - 1);
+        }
+        return pending;
+    }
+
+    /**
+     * Дописывает запись в активный сегмент. При включённом fsync возврат из метода означает,
+     * что запись уже на диске.
+     */
+    public Entry append(byte[] payload) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buf.putInt(payload.length);
+        buf.putInt(crc(payload));
+        buf.put(payload);
+        buf.flip();
+
+        appendLock.lock();
+        try {
+            if (active.size > 0 && active.size + buf.remaining() > segmentMaxBytes) {
+                Segment sealed = active;
+                active = createSegment(sealed.id + 1);
+                seal(sealed);
+            }
+            Segment segment = active;
+            while (buf.hasRemaining()) {
+                segment.channel.write(buf);
+            }
+            if (fsync) {
+                segment.channel.force(false);
+            }
+            segment.size += HEADER_BYTES + payload.length;
+            segment.appended.incrementAndGet();
+            return new Entry(segment, payload);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Отмечает запись обработанной. Сегмент удаляется, когда он закрыт и подтверждены все его записи.
+     */
+    public void acknowledge(Entry entry) {
+        Segment segment = entry.segment;
+        segment.acked.incrementAndGet();
+        deleteIfDrained(segment);
+    }
+
+    /**
+     * Откладывает запись, которую не удалось обработать, в отдельный файл для ручного разбора
+     * и подтверждает её в журнале.
+     */
+    public void deadLetter(Entry entry) {
+        byte[] line = new byte[entry.payload.length + 1];
+        System.arraycopy(entry.payload, 0, line, 0, entry.payload.length);
+        line[line.length - 1] = '\n';
+        try {
+            appendLock.lock();
+            try {
+                Files.write(directory.resolve(DEAD_LETTER_FILE), line,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            log.error("Failed to write dead letter to {}: {}", directory, e.getMessage());
+        }
+        acknowledge(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (active != null) {
+                Segment last = active;
+                active = null;
+                seal(last);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path file = directory.resolve(String.format("ingest-%012d.log", id));
+        Segment segment = new Segment(id, file);
+        segment.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void seal(Segment segment) throws IOException {
+        if (segment.channel != null) {
+            segment.channel.close();
+            segment.channel = null;
+        }
+        segment.sealed = true;
+        deleteIfDrained(segment);
+    }
+
+    private void deleteIfDrained(Segment segment) {
+        if (!segment.sealed || segment.acked.get() < segment.appended.get()) {
+            return;
+        }
+        if (!segment.deleted.compareAndSet(false, true)) {
+            return;
+        }
+        segments.remove(segment.id);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            log.warn("Failed to delete drained ingest segment {}: {}", segment.file, e.getMessage());
+        }
+    }
+
+    private List<byte[]> readSegment(Path file) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= fileSize) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || position + HEADER_BYTES + length > fileSize) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_BYTES);
+                if (crc(payload.array()) != checksum) {
+                    break;
+                }
+                records.add(payload.array());
+                position += HEADER_BYTES + length;
+            }
+            if (position < fileSize) {
+                log.warn("Ingest segment {}: dropping {} byte(s) of torn tail", file, fileSize - position);
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+        return records;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path file;
+        private final AtomicInteger appended = new AtomicInteger();
+        private final AtomicInteger acked = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private FileChannel channel;
+        private long size;
+        private volatile boolean sealed;
+
+        private Segment(long id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Запись журнала: сериализованный кадр и ссылка на сегмент, в котором он лежит.
+     */
+    public static final class Entry {
+        private final Segment segment;
+        private final byte[] payload;
+
+        private Entry(Segment segment, byte[] payload) {
+            this.segment = segment;
+            this.payload = payload;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
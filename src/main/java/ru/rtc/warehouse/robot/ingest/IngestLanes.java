@@ -0,0 +1,84 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Полосы приёма кадров: {@code warehouse.robot.ingest.partitions} однопоточных исполнителей
+ * с ограниченными очередями.
+ *
+ * <p>Все кадры одной партиции (склада или зоны склада, см. {@link IngestPartitioner}) применяются одним
+ * потоком строго по очереди: «последнее количество», строка робота и ключи Redis партиции не изменяются
+ * конкурентно, и блокировки строк в БД не нужны. Разные партиции обрабатываются параллельно.</p>
+ */
+@Slf4j
+@Component
+public class IngestLanes {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public IngestLanes(RobotIngestProperties properties, Environment environment) {
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        lanes = new ThreadPoolExecutor[properties.getPartitions()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(properties.getPartitionQueueCapacity()),
+                    threadFactory("robot-ingest-" + i, virtual));
+        }
+    }
+
+    /**
+     * Ставит задачу в очередь полосы {@code partition}.
+     *
+     * @throws RejectedExecutionException очередь полосы заполнена или приём остановлен
+     */
+    public <T> CompletableFuture<T> submit(int partition, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, lanes[partition]);
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    public int queued(int partition) {
+        return lanes[partition].getQueue().size();
+    }
+
+    /**
+     * Дожидается обработки уже поставленных кадров.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Ingest lane did not drain in time, {} frame(s) dropped from memory", lane.shutdownNow().size());
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).factory();
+        }
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
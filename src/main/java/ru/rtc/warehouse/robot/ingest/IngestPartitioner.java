@@ -0,0 +1,84 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.model.Robot;
+import ru.rtc.warehouse.robot.service.RobotEntityService;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Выбирает полосу {@link IngestLanes} (или Redis Stream в режиме stream) для кадра: по складу робота или по (склад, зона).
+ *
+ * <p>Склад робота берётся из небольшого кэша robotCode → warehouseId, чтобы не ходить в БД до постановки
+ * кадра в очередь. Неизвестный робот попадает в полосу 0, где обработка кадра вернёт обычную ошибку.</p>
+ */
+@Component
+public class IngestPartitioner {
+
+    private static final long UNKNOWN_WAREHOUSE = 0L;
+
+    private final RobotEntityService robotEntityService;
+    private final RobotIngestProperties properties;
+    private final Cache<String, Long> robotWarehouses;
+
+    public IngestPartitioner(RobotEntityService robotEntityService, RobotIngestProperties properties) {
+        this.robotEntityService = robotEntityService;
+        this.properties = properties;
+        // перенос робота на другой склад редок; минута устаревания лишь временно оставляет его в старой полосе
+        this.robotWarehouses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .maximumSize(10_000)
+                .build();
+    }
+
+    public int partitionOf(RobotDataRequest request) {
+        return partitionOf(request, properties.getPartitions());
+    }
+
+    /**
+     * Партиция кадра среди {@code partitions} (полос приёма или Redis Stream-ов).
+     */
+    public int partitionOf(RobotDataRequest request, int partitions) {
+        long warehouseId = warehouseOf(request.getCode());
+        if (warehouseId == UNKNOWN_WAREHOUSE) {
+            return 0;
+        }
+        int hash = properties.getPartitionBy() == RobotIngestProperties.PartitionBy.ZONE
+                && request.getLocation() != null
+                ? Objects.hash(warehouseId, request.getLocation().getZone())
+                : Long.hashCode(warehouseId);
+        return Math.floorMod(hash, partitions);
+    }
+
+    /**
+     * Могут ли кадры склада попадать в партицию {@code partition} из {@code partitions}; при разбиении
+     * по зонам — любой склад.
+     */
+    public boolean routesTo(long warehouseId, int partition, int partitions) {
+        return properties.getPartitionBy() == RobotIngestProperties.PartitionBy.ZONE
+                || Math.floorMod(Long.hashCode(warehouseId), partitions) == partition;
+    }
+
+    /**
+     * Склад робота из кэша; 0 — робот неизвестен или не привязан к складу.
+     */
+    public long warehouseOf(String robotCode) {
+        Long cached = robotWarehouses.getIfPresent(robotCode);
+        if (cached != null) {
+            return cached;
+        }
+        Long loaded = loadWarehouseId(robotCode);
+        robotWarehouses.put(robotCode, loaded);
+        return loaded;
+    }
+
+    private Long loadWarehouseId(String robotCode) {
+        Robot robot = robotEntityService.findByCode(robotCode);
+        return robot != null && robot.getWarehouse() != null ? robot.getWarehouse().getId() : UNKNOWN_WAREHOUSE;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Аренды партиций Redis Stream-ов приёма: партицию читает только узел, записавший своё имя
+ * в ключ аренды ({@code SET NX PX}) и продлевающий его.
+ *
+ * <p>Живые узлы отмечаются в sorted set {@code nodesKey}; каждый узел держит не больше
+ * ⌈партиций / узлов⌉ аренд, лишние отпускает, поэтому добавленный узел забирает свою долю
+ * за один-два периода продления. Аренда упавшего узла истекает через {@code leaseTtl}.</p>
+ *
+ * <p>Лишняя аренда отпускается только после того, как поток партиции на этом узле остановился;
+ * пока он дорабатывает кадр, аренда продлевается, и новый владелец не начнёт применять кадры
+ * партиции параллельно со старым.</p>
+ */
+@Slf4j
+public class IngestStreamLeases {
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) "
+                    + "else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RobotIngestProperties.Stream cfg;
+    private final String owner;
+    private final TreeSet<Integer> owned = new TreeSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public IngestStreamLeases(StringRedisTemplate redisTemplate, RobotIngestProperties.Stream cfg, String owner) {
+        this.redisTemplate = redisTemplate;
+        this.cfg = cfg;
+        this.owner = owner;
+    }
+
+    /**
+     * Продлевает свои аренды, отпускает лишние и захватывает свободные до справедливой доли.
+     * {@code stop} останавливает обработку партиции и возвращает true, если она уже остановлена:
+     * только тогда лишняя аренда отпускается, иначе она продлевается до следующего шага.
+     * Для потерянной аренды {@code stop} вызывается сразу после обнаружения потери.
+     *
+     * @return партиции, которыми узел владеет после шага
+     */
+    public Set<Integer> rebalance(IntPredicate stop) {
+        lock.lock();
+        try {
+            return doRebalance(stop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Set<Integer> doRebalance(IntPredicate stop) {
+        long now = System.currentTimeMillis();
+        long ttl = cfg.getLeaseTtl().toMillis();
+
+        redisTemplate.opsForZSet().add(cfg.getNodesKey(), owner, now);
+        redisTemplate.opsForZSet().removeRangeByScore(cfg.getNodesKey(), Double.NEGATIVE_INFINITY, now - ttl);
+        Long nodes = redisTemplate.opsForZSet().zCard(cfg.getNodesKey());
+        int share = Math.ceilDiv(cfg.getPartitions(), Math.max(1, nodes == null ? 1 : nodes.intValue()));
+
+        for (Integer partition : List.copyOf(owned)) {
+            Long renewed = redisTemplate.execute(RENEW, List.of(cfg.lease(partition)), owner, String.valueOf(ttl));
+            if (renewed == null || renewed == 0) {
+                log.warn("Lease of ingest partition {} was lost", partition);
+                owned.remove(partition);
+                stop.test(partition);
+            }
+        }
+
+        int surplus = owned.size() - share;
+        for (Integer partition : List.copyOf(owned.descendingSet())) {
+            if (surplus-- <= 0) {
+                break;
+            }
+            if (stop.test(partition)) {
+                release(partition);
+            } else {
+                log.info("Ingest partition {} is still being applied by {}, keeping its lease", partition, owner);
+            }
+        }
+
+        // перебор с позиции, зависящей от имени узла, — узлы не толкаются за одни и те же партиции
+        int start = Math.floorMod(owner.hashCode(), cfg.getPartitions());
+        for (int i = 0; i < cfg.getPartitions() && owned.size() < share; i++) {
+            int partition = (start + i) % cfg.getPartitions();
+            if (owned.contains(partition)) {
+                continue;
+            }
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(cfg.lease(partition), owner, ttl, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                owned.add(partition);
+                log.info("Ingest partition {} acquired by {}", partition, owner);
+            }
+        }
+        return Set.copyOf(owned);
+    }
+
+    public Set<Integer> owned() {
+        lock.lock();
+        try {
+            return Set.copyOf(owned);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отпускает аренды партиций, для которых {@code stop} вернул true; аренды партиций, которые
+     * ещё обрабатываются, истекут через {@code leaseTtl}.
+     */
+    public void releaseAll(IntPredicate stop) {
+        lock.lock();
+        try {
+            for (Integer partition : List.copyOf(owned)) {
+                if (stop.test(partition)) {
+                    release(partition);
+                }
+            }
+            redisTemplate.opsForZSet().remove(cfg.getNodesKey(), owner);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int partition) {
+        owned.remove(partition);
+        redisTemplate.execute(RELEASE, List.of(cfg.lease(partition)), owner);
+        log.info("Ingest partition {} released by {}", partition, owner);
+    }
+}
@@ -0,0 +1,509 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.inventory.cache.LastQuantityIndex;
+import ru.rtc.warehouse.location.cache.LocationMetricsRegistry;
+import ru.rtc.warehouse.robot.service.RobotDataService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Redis Streams для режима приёма {@code stream}: по потоку на партицию (склад), группа потребителей
+ * с подтверждениями, повторная обработка неподтверждённых кадров и метрики отставания.
+ *
+ * <p>Узел читает только партиции, аренду которых держит ({@link IngestStreamLeases}). Каждую партицию
+ * читает один поток узла, и все её кадры — новые и повторные — применяются им строго по порядку, как
+ * полосой в режиме sync. Обработанный кадр подтверждается (XACK) и удаляется из потока (XDEL), так что
+ * длина потока — это ещё не обработанные кадры.</p>
+ *
+ * <p>Кадр, упавший с временной ошибкой, останавливает партицию: он и следующие за ним кадры остаются
+ * в списке неподтверждённых (PEL) потребителя и перечитываются оттуда по порядку с нарастающей задержкой,
+ * новые кадры ({@code >}) не читаются, пока PEL не разобран. После {@code maxAttempts} доставок кадр уходит
+ * в {@code deadLetterKey}. Получив аренду, узел сначала забирает себе (XCLAIM) неподтверждённые кадры
+ * прежнего владельца, не подтверждённые дольше {@code claimIdle}, обрабатывает их и только потом читает новые.</p>
+ *
+ * <p>При передаче партиции поток старого владельца останавливается между кадрами, а аренда отпускается
+ * только после его выхода: недоработанные кадры пачки остаются в PEL и достаются новому владельцу.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "warehouse.robot.ingest", name = "mode", havingValue = "stream")
+public class IngestStreams {
+
+    public static final String FRAME_FIELD = "frame";
+    private static final long DEAD_LETTER_MAX_LENGTH = 100_000;
+
+    private final RobotIngestProperties properties;
+    private final RobotIngestProperties.Stream cfg;
+    private final StringRedisTemplate redisTemplate;
+    private final StreamOperations<String, String, String> streams;
+    private final RobotDataService robotDataService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final IngestPartitioner partitioner;
+    private final LastQuantityIndex lastQuantityIndex;
+    private final LocationMetricsRegistry locationMetricsRegistry;
+
+    private final String consumerName;
+    private final IngestStreamLeases leases;
+    private final Map<Integer, PartitionConsumer> consumers = new ConcurrentHashMap<>();
+    // длина потока и число неподтверждённых кадров по партициям, обновляются раз в период аренды
+    private final AtomicLongArray lengths;
+    private final AtomicLongArray pending;
+
+    private ScheduledExecutorService scheduler;
+
+    public IngestStreams(RobotIngestProperties properties, StringRedisTemplate redisTemplate,
+                         RobotDataService robotDataService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         IngestPartitioner partitioner, LastQuantityIndex lastQuantityIndex,
+                         LocationMetricsRegistry locationMetricsRegistry) {
+        this.properties = properties;
+        this.cfg = properties.getStream();
+        this.redisTemplate = redisTemplate;
+        this.streams = redisTemplate.opsForStream();
+        this.robotDataService = robotDataService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.partitioner = partitioner;
+        this.lastQuantityIndex = lastQuantityIndex;
+        this.locationMetricsRegistry = locationMetricsRegistry;
+        this.consumerName = cfg.getConsumer() != null ? cfg.getConsumer() : defaultConsumerName();
+        this.leases = new IngestStreamLeases(redisTemplate, cfg, consumerName);
+        this.lengths = new AtomicLongArray(cfg.getPartitions());
+        this.pending = new AtomicLongArray(cfg.getPartitions());
+    }
+
+    /**
+     * Добавляет кадр в поток партиции.
+     */
+    public RecordId append(int partition, String envelope) {
+        RecordId id = streams.add(cfg.key(partition), Map.of(FRAME_FIELD, envelope));
+        lengths.incrementAndGet(partition);
+        return id;
+    }
+
+    /**
+     * Кадры партиции, ещё не выданные ни одному потребителю (по последнему замеру).
+     */
+    public long lag(int partition) {
+        return Math.max(0, lengths.get(partition) - pending.get(partition));
+    }
+
+    public int partitions() {
+        return cfg.getPartitions();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int p = 0; p < cfg.getPartitions(); p++) {
+            createGroup(cfg.key(p));
+            String partition = String.valueOf(p);
+            int index = p;
+            Gauge.builder("robot.ingest.stream.lag", this, s -> s.lag(index))
+                    .description("Robot frames waiting in the ingest stream")
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+            Gauge.builder("robot.ingest.stream.pending", pending, a -> a.get(index))
+                    .description("Robot frames delivered but not yet acknowledged")
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("robot.ingest.stream.owned", leases, l -> l.owned().size())
+                .description("Ingest stream partitions consumed by this node")
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "robot-ingest-streams");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, cfg.getLeaseTtl().toMillis() / 3);
+        scheduler.scheduleWithFixedDelay(this::tick, 0, period, TimeUnit.MILLISECONDS);
+        log.info("Robot ingest streams started: {} partitions, consumer {}, consume={}",
+                cfg.getPartitions(), consumerName, cfg.isConsume());
+    }
+
+    private void tick() {
+        try {
+            if (cfg.isConsume()) {
+                Set<Integer> owned = leases.rebalance(this::stopConsumer);
+                for (Integer partition : owned) {
+                    // остановленный поток, партиция которого снова нужна узлу, сменяется новым после выхода
+                    consumers.compute(partition, (p, consumer) ->
+                            consumer == null || consumer.exited() ? new PartitionConsumer(p) : consumer);
+                }
+            }
+            refreshStats();
+        } catch (Exception e) {
+            log.warn("Ingest stream maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает поток партиции и ждёт его выхода не дольше двух интервалов опроса.
+     *
+     * @return true, если поток вышел и аренду можно отпускать; иначе он ещё применяет кадр
+     */
+    private boolean stopConsumer(int partition) {
+        PartitionConsumer consumer = consumers.get(partition);
+        if (consumer == null) {
+            return true;
+        }
+        if (!consumer.stop(cfg.getPollTimeout().multipliedBy(2))) {
+            return false;
+        }
+        consumers.remove(partition, consumer);
+        return true;
+    }
+
+    /**
+     * Цикл потока партиции: забрать кадры прежнего владельца, разобрать свой PEL, затем читать новые кадры.
+     */
+    private void consume(PartitionConsumer consumer) {
+        int partition = consumer.partition;
+        String key = cfg.key(partition);
+        // пока партицией владел другой узел, кэши этого узла по её складам не обновлялись
+        invalidateCaches(partition);
+
+        // кадры прежнего владельца, ещё не простоявшие claimIdle: пока они есть, новые кадры не читаются,
+        // чтобы не обогнать их
+        boolean foreignWaiting = true;
+        long nextForeignClaim = 0;
+        boolean backlog = true;
+        long delay = properties.getRetryDelayMillis();
+        while (consumer.running) {
+            boolean progressed;
+            try {
+                if (foreignWaiting || System.currentTimeMillis() >= nextForeignClaim) {
+                    ForeignClaim claim = claimForeign(key, cfg.getClaimIdle());
+                    backlog |= claim.claimed();
+                    foreignWaiting = claim.waiting();
+                    nextForeignClaim = System.currentTimeMillis() + cfg.getClaimIdle().toMillis();
+                }
+                if (backlog) {
+                    progressed = replayPending(consumer);
+                    backlog = !progressed || hasOwnPending(key);
+                } else if (foreignWaiting) {
+                    // ждём, пока кадры прежнего владельца простоят claimIdle и их можно будет забрать
+                    LockSupport.parkNanos(cfg.getPollTimeout().toNanos());
+                    continue;
+                } else {
+                    progressed = readNew(consumer);
+                    backlog = !progressed;
+                }
+            } catch (Exception e) {
+                log.warn("Ingest partition {} poll failed: {}", partition, e.getMessage());
+                // прочитанные, но не подтверждённые кадры остались в PEL — сначала они
+                backlog = true;
+                progressed = false;
+            }
+            if (progressed) {
+                delay = properties.getRetryDelayMillis();
+            } else if (consumer.running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delay));
+                delay = Math.min(delay * 2, properties.getRetryMaxDelayMillis());
+            }
+        }
+    }
+
+    /**
+     * Перечитывает свои неподтверждённые кадры по порядку.
+     *
+     * @return false, если кадр упал с временной ошибкой: он и следующие кадры остаются в PEL
+     */
+    private boolean replayPending(PartitionConsumer consumer) {
+        int partition = consumer.partition;
+        String key = cfg.key(partition);
+        Consumer me = Consumer.from(cfg.getGroup(), consumerName);
+        PendingMessages own = streams.pending(key, me, Range.unbounded(), cfg.getBatchSize());
+        if (own.isEmpty()) {
+            return true;
+        }
+        Map<RecordId, Long> deliveries = new HashMap<>();
+        for (PendingMessage message : own) {
+            deliveries.put(message.getId(), message.getTotalDeliveryCount());
+        }
+        // чтение истории (смещение 0) возвращает PEL потребителя по порядку id
+        List<MapRecord<String, String, String>> records = streams.read(me,
+                StreamReadOptions.empty().count(cfg.getBatchSize()), StreamOffset.create(key, ReadOffset.from("0")));
+        for (MapRecord<String, String, String> record : records) {
+            if (!consumer.running) {
+                // партиция передаётся другому узлу: оставшиеся кадры он заберёт из PEL
+                return true;
+            }
+            if (deliveries.getOrDefault(record.getId(), 0L) >= properties.getMaxAttempts()) {
+                log.error("Frame {} of ingest partition {} failed after {} attempts, moving to dead letters",
+                        record.getId(), partition, properties.getMaxAttempts());
+                deadLetter(key, record, "max attempts exceeded");
+                continue;
+            }
+            if (!process(partition, record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Читает и обрабатывает новые кадры партиции.
+     *
+     * @return false, если кадр упал с временной ошибкой: он и оставшиеся кадры пачки остаются в PEL
+     */
+    private boolean readNew(PartitionConsumer consumer) {
+        int partition = consumer.partition;
+        String key = cfg.key(partition);
+        List<MapRecord<String, String, String>> records = streams.read(Consumer.from(cfg.getGroup(), consumerName),
+                StreamReadOptions.empty().count(cfg.getBatchSize()).block(cfg.getPollTimeout()),
+                StreamOffset.create(key, ReadOffset.lastConsumed()));
+        if (records == null) {
+            return true;
+        }
+        for (MapRecord<String, String, String> record : records) {
+            if (!consumer.running) {
+                return true;
+            }
+            if (!process(partition, record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasOwnPending(String key) {
+        return !streams.pending(key, Consumer.from(cfg.getGroup(), consumerName), Range.unbounded(), 1).isEmpty();
+    }
+
+    /**
+     * Передаёт этому потребителю неподтверждённые кадры других потребителей группы (XCLAIM JUSTID —
+     * счётчик доставок не растёт), не подтверждённые дольше {@code minIdle}.
+     *
+     * @return забраны ли кадры и остались ли чужие кадры, простоявшие меньше {@code minIdle}
+     */
+    private ForeignClaim claimForeign(String key, Duration minIdle) {
+        boolean claimed = false;
+        boolean waiting = false;
+        Range<String> range = Range.unbounded();
+        while (true) {
+            PendingMessages page = streams.pending(key, cfg.getGroup(), range, cfg.getBatchSize());
+            List<RecordId> foreign = new ArrayList<>();
+            for (PendingMessage message : page) {
+                if (consumerName.equals(message.getConsumerName())) {
+                    continue;
+                }
+                if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+                    foreign.add(message.getId());
+                } else {
+                    waiting = true;
+                }
+            }
+            if (!foreign.isEmpty()) {
+                redisTemplate.execute((RedisCallback<List<RecordId>>) connection ->
+                        ((StringRedisConnection) connection).xClaimJustId(key, cfg.getGroup(), consumerName,
+                                XClaimOptions.minIdle(minIdle).ids(foreign.toArray(RecordId[]::new))));
+                claimed = true;
+            }
+            if (page.size() < cfg.getBatchSize()) {
+                return new ForeignClaim(claimed, waiting);
+            }
+            range = Range.rightUnbounded(Range.Bound.exclusive(page.get(page.size() - 1).getIdAsString()));
+        }
+    }
+
+    private void invalidateCaches(int partition) {
+        lastQuantityIndex.invalidateWarehouses(
+                warehouseId -> partitioner.routesTo(warehouseId, partition, cfg.getPartitions()));
+        locationMetricsRegistry.invalidateWarehouses(
+                warehouseId -> partitioner.routesTo(warehouseId, partition, cfg.getPartitions()));
+    }
+
+    /**
+     * @return false — временная ошибка, кадр остаётся неподтверждённым и будет обработан повторно
+     */
+    private boolean process(int partition, MapRecord<String, String, String> record) {
+        String key = cfg.key(partition);
+        IngestEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(record.getValue().get(FRAME_FIELD), IngestEnvelope.class);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Unreadable ingest stream entry {}, moving to dead letters: {}", record.getId(), e.getMessage());
+            deadLetter(key, record, e.getMessage());
+            return true;
+        }
+
+        String robotCode = envelope.getRequest().getCode();
+        try {
+            robotDataService.processRobotData(envelope.getRequest(), envelope.getMessageIds());
+            acknowledge(key, record.getId());
+        } catch (DataIntegrityViolationException e) {
+            // message_id уникален: при повторной доставке после сбоя кадр может быть уже записан;
+            // если его в БД нет, нарушено другое ограничение (FK, NOT NULL), и повтор не поможет
+            if (!robotDataService.isFrameApplied(envelope.getRequest(), envelope.getMessageIds())) {
+                log.error("Frame of robot {} violates a database constraint, moving to dead letters: {}",
+                        robotCode, e.getMostSpecificCause().getMessage());
+                deadLetter(key, record, e.getMostSpecificCause().getMessage());
+                return true;
+            }
+            log.debug("Frame of robot {} already applied, skipping: {}", robotCode, e.getMessage());
+            acknowledge(key, record.getId());
+        } catch (NotFoundException | IllegalArgumentException e) {
+            log.warn("Dropping frame of robot {}: {}", robotCode, e.getMessage());
+            deadLetter(key, record, e.getMessage());
+        } catch (Exception e) {
+            // кадр и следующие за ним остаются неподтверждёнными, партиция ждёт повтора
+            log.warn("Frame of robot {} failed, will be retried: {}", robotCode, e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private void acknowledge(String key, RecordId id) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.xAck(key, cfg.getGroup(), id);
+            conn.xDel(key, id);
+            return null;
+        });
+    }
+
+    private void deadLetter(String key, MapRecord<String, String, String> record, String error) {
+        String frame = record.getValue().getOrDefault(FRAME_FIELD, "");
+        streams.add(cfg.getDeadLetterKey(),
+                Map.of(FRAME_FIELD, frame, "stream", key, "error", String.valueOf(error)));
+        streams.trim(cfg.getDeadLetterKey(), DEAD_LETTER_MAX_LENGTH, true);
+        acknowledge(key, record.getId());
+    }
+
+    private void refreshStats() {
+        for (int p = 0; p < cfg.getPartitions(); p++) {
+            String key = cfg.key(p);
+            Long length = streams.size(key);
+            lengths.set(p, length != null ? length : 0);
+            long unacked = streams.groups(key).stream()
+                    .filter(g -> cfg.getGroup().equals(g.groupName()))
+                    .mapToLong(StreamInfo.XInfoGroup::pendingCount)
+                    .findFirst()
+                    .orElse(0);
+            pending.set(p, unacked);
+        }
+    }
+
+    private void createGroup(String key) {
+        try {
+            // MKSTREAM; смещение 0 — кадры, добавленные до создания группы, тоже будут обработаны
+            streams.createGroup(key, ReadOffset.from("0"), cfg.getGroup());
+        } catch (RedisSystemException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Останавливает чтение и отпускает аренды: неподтверждённые кадры остаются в потоках
+     * и будут обработаны новым владельцем партиции.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            leases.releaseAll(this::stopConsumer);
+        } catch (Exception e) {
+            log.debug("Failed to release ingest leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private static String defaultConsumerName() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "node";
+            }
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    private record ForeignClaim(boolean claimed, boolean waiting) {
+    }
+
+    /**
+     * Поток, последовательно применяющий кадры одной партиции.
+     */
+    private final class PartitionConsumer {
+
+        private final int partition;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private PartitionConsumer(int partition) {
+            this.partition = partition;
+            this.thread = new Thread(() -> consume(this), "robot-ingest-stream-" + partition);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * @return true, если поток вышел за {@code timeout}
+         */
+        private boolean stop(Duration timeout) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(timeout.toMillis());
+                return !thread.isAlive();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private boolean exited() {
+            return !running && !thread.isAlive();
+        }
+    }
+}
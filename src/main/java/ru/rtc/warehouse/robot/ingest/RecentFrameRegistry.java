@@ -0,0 +1,53 @@
+package ru.rtc.warehouse.robot.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Недавно принятые кадры с клиентским frameId: (robotCode, frameId) → выданные messageIds.
+ *
+ * <p>Переотправка кадра в пределах окна {@code warehouse.robot.ingest.dedup-window} отвечает исходными
+ * messageIds без обращения к БД. За пределами окна дубль отсекает уникальный индекс {@code ingested_frames}.</p>
+ */
+@Component
+public class RecentFrameRegistry {
+
+    private final Cache<String, List<UUID>> frames;
+
+    public RecentFrameRegistry(RobotIngestProperties properties) {
+        this.frames = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getDedupWindow())
+                .maximumSize(properties.getDedupMaxFrames())
+                .build();
+    }
+
+    public List<UUID> find(String robotCode, String frameId) {
+        return frames.getIfPresent(key(robotCode, frameId));
+    }
+
+    /**
+     * Регистрирует кадр, если он ещё не известен.
+     *
+     * @return messageIds ранее принятого кадра или {@code null}, если кадр новый
+     */
+    public List<UUID> putIfAbsent(String robotCode, String frameId, List<UUID> messageIds) {
+        return frames.asMap().putIfAbsent(key(robotCode, frameId), messageIds);
+    }
+
+    public void put(String robotCode, String frameId, List<UUID> messageIds) {
+        frames.put(key(robotCode, frameId), messageIds);
+    }
+
+    public void remove(String robotCode, String frameId) {
+        frames.invalidate(key(robotCode, frameId));
+    }
+
+    private static String key(String robotCode, String frameId) {
+        return robotCode + '|' + frameId;
+    }
+}
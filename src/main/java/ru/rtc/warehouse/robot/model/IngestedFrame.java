@@ -0,0 +1,38 @@
+package ru.rtc.warehouse.robot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Кадр робота с клиентским frameId, уже записанный в историю: повторная отправка того же кадра
+ * получает исходные messageIds без повторной вставки.
+ */
+@Entity
+@Table(name = "ingested_frames",
+		uniqueConstraints = @UniqueConstraint(name = "uq_ingested_frames_robot_frame", columnNames = {"robot_code", "frame_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestedFrame {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "robot_code", nullable = false, length = 50)
+	private String robotCode;
+
+	@Column(name = "frame_id", nullable = false, length = 64)
+	private String frameId;
+
+	@Column(name = "message_ids", nullable = false, columnDefinition = "uuid[]")
+	private UUID[] messageIds;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package ru.rtc.warehouse.robot.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.rtc.warehouse.robot.model.IngestedFrame;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IngestedFrameRepository extends JpaRepository<IngestedFrame, Long> {
+	Optional<IngestedFrame> findByRobotCodeAndFrameId(String robotCode, String frameId);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IngestedFrame f WHERE f.createdAt < :before")
+	int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
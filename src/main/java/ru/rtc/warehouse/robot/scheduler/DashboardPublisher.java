@@ -6,6 +6,9 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.config.RobotProperties;
+import ru.rtc.warehouse.config.messaging.RobotChannelCodec;
+import ru.rtc.warehouse.robot.cache.RobotLiveState;
+import ru.rtc.warehouse.robot.cache.RobotLiveStateStore;
 import ru.rtc.warehouse.robot.dto.RobotUpdateDTO;
 import ru.rtc.warehouse.robot.dto.RobotUpdateDataDTO;
 import ru.rtc.warehouse.robot.model.Robot;
@@ -25,6 +28,8 @@ public class DashboardPublisher {
     private final StringRedisTemplate redisTemplate;
     private final RobotProperties robotProperties;
     private final ObjectMapper objectMapper;
+    private final RobotChannelCodec channelCodec;
+    private final RobotLiveStateStore robotLiveStateStore;
 
     @Scheduled(fixedRateString = "${warehouse.robot.heartbeat-millis}")
     @Transactional(readOnly = true)
@@ -62,20 +67,20 @@ public class DashboardPublisher {
             Collections.reverse(recentScans);
         }
 
+        // строка robots обновляется пачками — свежие заряд/локация/время берутся из оперативного состояния
+        RobotLiveState state = robotLiveStateStore.view(robot);
         RobotUpdateDataDTO data = new RobotUpdateDataDTO(
                 robot.getCode(),
-                robot.getBatteryLevel(),
-                robot.getLocation() != null ? robot.getLocation().getZone() : null,
-                robot.getLocation() != null ? robot.getLocation().getRow() : null,
-                robot.getLocation() != null ? robot.getLocation().getShelf() : null,
+                state.batteryLevel(),
+                state.zone(),
+                state.row(),
+                state.shelf(),
                 null,
-                Objects.toString(robot.getLastUpdate(), ""),
-                recentScans
-        );
+                Objects.toString(state.lastUpdate(), ""),
+                recentScans);
 
         RobotUpdateDTO payload = new RobotUpdateDTO("robot_update", data);
 
-        String json = objectMapper.writeValueAsString(payload);
-        redisTemplate.convertAndSend(robotProperties.getRedisChannel(), json);
+        channelCodec.publish(redisTemplate, payload);
     }
 }
@@ -0,0 +1,35 @@
+package ru.rtc.warehouse.robot.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.robot.repository.IngestedFrameRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Удаляет записи ingested_frames старше {@code warehouse.robot.ingest.frame-retention}:
+ * робот переотправляет кадр в течение секунд-минут, дольше хранить их незачем.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestedFrameCleanup {
+
+    private final IngestedFrameRepository ingestedFrameRepository;
+    private final RobotIngestProperties properties;
+
+    @Scheduled(fixedDelayString = "${warehouse.robot.ingest.frame-cleanup-millis:3600000}")
+    public void purgeExpired() {
+        try {
+            int removed = ingestedFrameRepository.deleteCreatedBefore(LocalDateTime.now().minus(properties.getFrameRetention()));
+            if (removed > 0) {
+                log.debug("Removed {} expired ingested frame(s)", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge ingested frames: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.rtc.warehouse.robot.service;
+
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface RobotBulkIngestService {
+
+    /**
+     * Разбирает NDJSON-поток кадров робота {@code robotCode} по одному кадру и принимает их пачками.
+     */
+    RobotBulkDataResponse ingest(InputStream ndjson, String robotCode) throws IOException;
+}
@@ -3,6 +3,42 @@ package ru.rtc.warehouse.robot.service;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
 import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
 public interface RobotDataService {
     public RobotDataResponse processRobotData(RobotDataRequest robotDataRequest);
+
+    /**
+     * Обрабатывает кадр с заранее выданными messageIds (по одному на scanResult, в том же порядке).
+     * Используется асинхронным приёмом: повтор кадра с теми же идентификаторами не создаёт дублей истории.
+     */
+    public RobotDataResponse processRobotData(RobotDataRequest robotDataRequest, List<UUID> messageIds);
+
+    /**
+     * Обрабатывает кадр в составе пачки, применяемой одной транзакцией. {@code carriedQuantities} — последние
+     * количества, записанные предыдущими кадрами пачки: кэш последних количеств обновляется только после
+     * коммита, и без этой карты следующий кадр пачки сравнивался бы с количеством до пачки.
+     */
+    public RobotDataResponse processRobotData(RobotDataRequest robotDataRequest,
+                                              Map<QuantityKey, Integer> carriedQuantities);
+
+    /**
+     * messageIds кадра с указанным frameId, если он уже записан.
+     */
+    public Optional<List<UUID>> findAppliedFrame(String robotCode, String frameId);
+
+    /**
+     * Записан ли уже кадр с этими messageIds: по frameId или по первой записи истории
+     * (записи кадра вставляются одной транзакцией).
+     */
+    public boolean isFrameApplied(RobotDataRequest robotDataRequest, List<UUID> messageIds);
+
+    /**
+     * Ключ последнего количества: товар в локации склада.
+     */
+    record QuantityKey(Long warehouseId, Long locationId, Long productId) {
+    }
 }
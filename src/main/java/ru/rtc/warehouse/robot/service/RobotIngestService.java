@@ -0,0 +1,50 @@
+package ru.rtc.warehouse.robot.service;
+
+import ru.rtc.warehouse.exception.IngestOverloadedException;
+import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse.FrameResult;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Точка входа для кадров роботов. Реализация выбирается свойством {@code warehouse.robot.ingest.mode}.
+ */
+public interface RobotIngestService {
+    RobotDataResponse accept(RobotDataRequest request);
+
+    /**
+     * Сколько принятых кадров ждёт применения (очереди полос, журнал или потоки Redis).
+     * Используется для сброса нагрузки на входе ({@code RobotAdmissionFilter}).
+     */
+    long backlog();
+
+    /**
+     * Принимает пачку уже провалидированных кадров (bulk-приём). Результат i-го элемента соответствует
+     * i-му кадру; ошибка отдельного кадра не прерывает обработку остальных.
+     */
+    default List<FrameResult> acceptAll(List<RobotDataRequest> requests) {
+        return acceptEach(requests);
+    }
+
+    /**
+     * Покадровый приём с переводом ошибок кадра в его результат.
+     */
+    default List<FrameResult> acceptEach(List<RobotDataRequest> requests) {
+        List<FrameResult> results = new ArrayList<>(requests.size());
+        for (RobotDataRequest request : requests) {
+            try {
+                results.add(FrameResult.of(accept(request)));
+            } catch (IngestOverloadedException e) {
+                results.add(FrameResult.error("overloaded", e.getMessage()));
+            } catch (NotFoundException | IllegalArgumentException e) {
+                results.add(FrameResult.error("rejected", e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(FrameResult.error("failed", "Internal error"));
+            }
+        }
+        return results;
+    }
+}
@@ -8,4 +8,10 @@ import java.util.Optional;
 public interface ProductAdapter {
     Optional<Product> findByCodeAndWarehouse(String code, Warehouse warehouse);
     Optional<Product> findByCode(String code);
+
+    /**
+     * Товар по SKU для кадра робота: сначала среди товаров склада, затем по коду.
+     * Возвращает ссылку на товар из кэша, без загрузки полей.
+     */
+    Optional<Product> resolveForScan(String code, Warehouse warehouse);
 }
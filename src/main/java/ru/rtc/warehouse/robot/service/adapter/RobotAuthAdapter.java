@@ -5,4 +5,5 @@ import ru.rtc.warehouse.robot.model.Robot;
 
 public interface RobotAuthAdapter {
     RobotToken createRobotToken(Robot robot);
+    void deleteRobotTokens(Robot robot);
 }
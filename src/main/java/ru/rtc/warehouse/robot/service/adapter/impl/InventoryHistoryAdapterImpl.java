@@ -3,9 +3,11 @@ package ru.rtc.warehouse.robot.service.adapter.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.inventory.cache.LastQuantityIndex;
 import ru.rtc.warehouse.inventory.model.InventoryHistory;
 import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
 import ru.rtc.warehouse.location.model.Location;
+import ru.rtc.warehouse.product.model.Product;
 import ru.rtc.warehouse.robot.service.adapter.InventoryHistoryAdapter;
 import ru.rtc.warehouse.warehouse.model.Warehouse;
 
@@ -16,9 +18,19 @@ import java.util.Optional;
 public class InventoryHistoryAdapterImpl implements InventoryHistoryAdapter {
 
     private final InventoryHistoryRepository inventoryHistoryRepository;
+    private final LastQuantityIndex lastQuantityIndex;
 
     @Override
     public Optional<InventoryHistory> findLatestByProductCodeAndLocationAndWarehouse(String productCode, Location location, Warehouse warehouse) {
         return inventoryHistoryRepository.findFirstByProduct_CodeAndLocationAndWarehouseOrderByScannedAtDesc(productCode, location, warehouse);
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<Integer> findLatestQuantity(Product product, Location location, Warehouse warehouse) {
+        LastQuantityIndex.Snapshot snapshot = lastQuantityIndex.get(warehouse.getId(), location.getId(), product.getId(),
+                () -> findLatestByProductCodeAndLocationAndWarehouse(product.getCode(), location, warehouse)
+                        .map(h -> new LastQuantityIndex.Snapshot(h.getQuantity(), h.getScannedAt()))
+                        .orElseGet(LastQuantityIndex.Snapshot::empty));
+        return Optional.ofNullable(snapshot.quantity());
+    }
+}
@@ -2,8 +2,8 @@ package ru.rtc.warehouse.robot.service.adapter.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
 import ru.rtc.warehouse.location.model.Location;
-import ru.rtc.warehouse.location.repository.LocationRepository;
 import ru.rtc.warehouse.robot.service.adapter.LocationAdapter;
 import ru.rtc.warehouse.warehouse.model.Warehouse;
 
@@ -13,10 +13,10 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class LocationAdapterImpl implements LocationAdapter {
 
-    private final LocationRepository locationRepository;
+    private final LocationGridIndex locationGridIndex;
 
     @Override
     public Optional<Location> findByWarehouseAndZoneAndRowAndShelf(Warehouse warehouse, Integer zone, Integer row, Integer shelf) {
-        return locationRepository.findByWarehouseAndZoneAndRowAndShelf(warehouse, zone, row, shelf);
+        return locationGridIndex.find(warehouse, zone, row, shelf);
     }
 }
\ No newline at end of file
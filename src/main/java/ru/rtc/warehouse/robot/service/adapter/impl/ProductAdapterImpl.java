@@ -2,18 +2,21 @@ package ru.rtc.warehouse.robot.service.adapter.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.rtc.warehouse.product.cache.ProductCodeCache;
 import ru.rtc.warehouse.product.model.Product;
 import ru.rtc.warehouse.product.repository.ProductRepository;
 import ru.rtc.warehouse.robot.service.adapter.ProductAdapter;
 import ru.rtc.warehouse.warehouse.model.Warehouse;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 
 @Component
 @RequiredArgsConstructor
 public class ProductAdapterImpl implements ProductAdapter {
 
     private final ProductRepository productRepository;
+    private final ProductCodeCache productCodeCache;
 
     @Override
     public Optional<Product> findByCodeAndWarehouse(String code, Warehouse warehouse) {
@@ -24,4 +27,14 @@ public class ProductAdapterImpl implements ProductAdapter {
     public Optional<Product> findByCode(String code) {
         return productRepository.findByCode(code);
     }
+
+    @Override
+    public Optional<Product> resolveForScan(String code, Warehouse warehouse) {
+        OptionalLong id = productCodeCache.get(warehouse.getId(), code,
+                () -> findByCodeAndWarehouse(code, warehouse)
+                        .or(() -> findByCode(code))
+                        .map(p -> OptionalLong.of(p.getId()))
+                        .orElseGet(OptionalLong::empty));
+        return id.isPresent() ? Optional.of(productRepository.getReferenceById(id.getAsLong())) : Optional.empty();
+    }
 }
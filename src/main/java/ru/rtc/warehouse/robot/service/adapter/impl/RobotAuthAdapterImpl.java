@@ -18,6 +18,11 @@ public class RobotAuthAdapterImpl implements RobotAuthAdapter {
     public RobotToken createRobotToken(Robot robot) {
         return robotAuthService.createRobotToken(robot);
     }
+
+    @Override
+    public void deleteRobotTokens(Robot robot) {
+        robotAuthService.deleteRobotTokens(robot);
+    }
 }
 
 
@@ -0,0 +1,321 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.exception.IngestOverloadedException;
+import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.ingest.IngestEnvelope;
+import ru.rtc.warehouse.robot.ingest.IngestJournal;
+import ru.rtc.warehouse.robot.ingest.IngestLanes;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.RecentFrameRegistry;
+import ru.rtc.warehouse.robot.service.RobotDataService;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Асинхронный приём кадров: кадр пишется в {@link IngestJournal} и сразу подтверждается роботу,
+ * а в Postgres/Redis его переносят полосы приёма ({@link IngestLanes}). Неподтверждённые записи журнала
+ * повторно обрабатываются после рестарта.
+ *
+ * <p>Порядок кадров партиции сохраняется: кадр с временной ошибкой повторяется на месте, задерживая
+ * свою полосу, а кадры, не поместившиеся в очередь полосы, ждут в очереди переполнения партиции
+ * и передаются полосе по порядку.</p>
+ */
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "warehouse.robot.ingest", name = "mode", havingValue = "async")
+public class AsyncRobotIngestService implements RobotIngestService {
+
+    private final RobotIngestProperties properties;
+    private final RobotDataService robotDataService;
+    private final ObjectMapper objectMapper;
+    private final RecentFrameRegistry recentFrames;
+    private final IngestLanes lanes;
+    private final IngestPartitioner partitioner;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    // кадры, не поместившиеся в очередь своей полосы, по партициям; пока очередь не пуста,
+    // новые кадры партиции встают за ними
+    private final Map<Integer, Deque<Queued>> overflow = new HashMap<>();
+    private final ReentrantLock overflowLock = new ReentrantLock();
+
+    private IngestJournal journal;
+    private List<IngestJournal.Entry> replay = List.of();
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void init() throws IOException {
+        RobotIngestProperties.Journal cfg = properties.getJournal();
+        journal = new IngestJournal(Path.of(cfg.getDirectory()), cfg.getSegmentMaxBytes(), cfg.isFsync());
+        replay = journal.open();
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "robot-ingest-retry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Повторная обработка журнала запускается, когда приложение полностью поднято (БД, Redis, WS).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        List<IngestJournal.Entry> entries = replay;
+        replay = List.of();
+        for (IngestJournal.Entry entry : entries) {
+            pending.incrementAndGet();
+            submit(entry);
+        }
+    }
+
+    @Override
+    public RobotDataResponse accept(RobotDataRequest request) {
+        List<UUID> messageIds = new ArrayList<>(request.getScanResults().size());
+        for (int i = 0; i < request.getScanResults().size(); i++) {
+            messageIds.add(UUID.randomUUID());
+        }
+
+        // переотправка кадра, уже принятого в журнал или записанного, получает исходные messageIds
+        String frameId = request.getFrameId();
+        if (frameId != null) {
+            List<UUID> known = recentFrames.putIfAbsent(request.getCode(), frameId, messageIds);
+            if (known != null) {
+                return new RobotDataResponse("duplicate", known);
+            }
+        }
+
+        if (pending.incrementAndGet() > properties.getMaxPendingFrames()) {
+            pending.decrementAndGet();
+            forget(request);
+            throw new IngestOverloadedException("Ingest backlog is full, retry later",
+                    Math.max(1, properties.getRetryDelayMillis() / 1000));
+        }
+
+        IngestJournal.Entry entry;
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(new IngestEnvelope(messageIds, request, Instant.now()));
+            entry = journal.append(payload);
+        } catch (IOException e) {
+            pending.decrementAndGet();
+            forget(request);
+            throw new UncheckedIOException("Failed to append robot frame to ingest journal", e);
+        }
+
+        submit(entry);
+        return new RobotDataResponse("accepted", messageIds);
+    }
+
+    private void forget(RobotDataRequest request) {
+        if (request.getFrameId() != null) {
+            recentFrames.remove(request.getCode(), request.getFrameId());
+        }
+    }
+
+    @Override
+    public long backlog() {
+        return pending.get();
+    }
+
+    /**
+     * Передаёт запись полосе её партиции. Если очередь полосы заполнена, запись уже в журнале —
+     * она ждёт в очереди переполнения партиции.
+     */
+    private void submit(IngestJournal.Entry entry) {
+        IngestEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(entry.getPayload(), IngestEnvelope.class);
+        } catch (IOException e) {
+            log.error("Unreadable ingest journal entry, moving to dead letters: {}", e.getMessage());
+            complete(entry, true);
+            return;
+        }
+
+        int partition = partitioner.partitionOf(envelope.getRequest());
+        Queued queued = new Queued(entry, envelope);
+        overflowLock.lock();
+        try {
+            Deque<Queued> waiting = overflow.get(partition);
+            if (waiting != null && !waiting.isEmpty()) {
+                waiting.addLast(queued);
+            } else if (!offer(partition, queued)) {
+                overflow.computeIfAbsent(partition, p -> new ArrayDeque<>()).addLast(queued);
+                scheduleRetry(() -> drain(partition), properties.getRetryDelayMillis());
+            }
+        } finally {
+            overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Передаёт полосе кадры из очереди переполнения партиции, пока в очереди полосы есть место.
+     */
+    private void drain(int partition) {
+        overflowLock.lock();
+        try {
+            Deque<Queued> waiting = overflow.get(partition);
+            while (waiting != null && !waiting.isEmpty()) {
+                if (!offer(partition, waiting.peekFirst())) {
+                    scheduleRetry(() -> drain(partition), properties.getRetryDelayMillis());
+                    return;
+                }
+                waiting.pollFirst();
+            }
+        } finally {
+            overflowLock.unlock();
+        }
+    }
+
+    /**
+     * @return false, если очередь полосы заполнена
+     */
+    private boolean offer(int partition, Queued queued) {
+        try {
+            lanes.submit(partition, () -> {
+                process(queued.entry(), queued.envelope());
+                return null;
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (stopping) {
+                // приложение останавливается — запись остаётся в журнале до следующего старта
+                log.debug("Ingest lanes are stopped, frame stays in journal");
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Применяет кадр в потоке полосы. Временная ошибка повторяется здесь же с нарастающей задержкой:
+     * следующие кадры партиции ждут, а не обгоняют повторяемый кадр.
+     */
+    private void process(IngestJournal.Entry entry, IngestEnvelope envelope) {
+        String robotCode = envelope.getRequest().getCode();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(entry, envelope);
+                return;
+            } catch (Exception e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    log.error("Frame of robot {} failed after {} attempts, moving to dead letters: {}",
+                            robotCode, attempt, e.getMessage());
+                    complete(entry, true);
+                    return;
+                }
+                long delay = Math.min(properties.getRetryMaxDelayMillis(),
+                        properties.getRetryDelayMillis() << Math.min(attempt - 1, 16));
+                log.warn("Frame of robot {} failed (attempt {}), retrying in {} ms: {}",
+                        robotCode, attempt, delay, e.getMessage());
+                if (!pause(delay)) {
+                    log.debug("Ingest is stopping, frame of robot {} stays in journal", robotCode);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Одна попытка: запись завершается (подтверждается или уходит в dead letters), либо временная
+     * ошибка пробрасывается для повтора.
+     */
+    private void apply(IngestJournal.Entry entry, IngestEnvelope envelope) {
+        String robotCode = envelope.getRequest().getCode();
+        try {
+            robotDataService.processRobotData(envelope.getRequest(), envelope.getMessageIds());
+            complete(entry, false);
+        } catch (DataIntegrityViolationException e) {
+            // message_id и (robot_code, frame_id) уникальны: кадр мог быть записан до сбоя. Если кадра в БД нет,
+            // нарушено другое ограничение (FK, NOT NULL), и повтор его не исправит
+            if (robotDataService.isFrameApplied(envelope.getRequest(), envelope.getMessageIds())) {
+                log.debug("Frame of robot {} already applied, skipping: {}", robotCode, e.getMessage());
+                complete(entry, false);
+            } else {
+                log.error("Frame of robot {} violates a database constraint, moving to dead letters: {}",
+                        robotCode, e.getMostSpecificCause().getMessage());
+                complete(entry, true);
+            }
+        } catch (NotFoundException | IllegalArgumentException e) {
+            log.warn("Dropping frame of robot {}: {}", robotCode, e.getMessage());
+            complete(entry, true);
+        }
+    }
+
+    /**
+     * @return false — приём останавливается, повтор прерван
+     */
+    private boolean pause(long delayMillis) {
+        try {
+            Thread.sleep(delayMillis);
+            return !stopping;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void scheduleRetry(Runnable task, long delayMillis) {
+        try {
+            retryScheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.debug("Ingest retry scheduler is stopped, frame stays in journal");
+        }
+    }
+
+    private void complete(IngestJournal.Entry entry, boolean deadLetter) {
+        if (deadLetter) {
+            journal.deadLetter(entry);
+        } else {
+            journal.acknowledge(entry);
+        }
+        pending.decrementAndGet();
+    }
+
+    private record Queued(IngestJournal.Entry entry, IngestEnvelope envelope) {
+    }
+
+    /**
+     * Останавливает приём: незавершённые кадры остаются в журнале и будут обработаны при следующем старте.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        stopping = true;
+        retryScheduler.shutdownNow();
+        lanes.shutdown();
+        journal.close();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse.FrameResult;
+import ru.rtc.warehouse.robot.service.RobotBulkIngestService;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk-приём буферизованных кадров: NDJSON читается потоково через {@link MappingIterator},
+ * в памяти держится только текущая пачка из {@code warehouse.robot.ingest.bulk-chunk-size} кадров.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RobotBulkIngestServiceImpl implements RobotBulkIngestService {
+
+    private final RobotIngestService robotIngestService;
+    private final RobotIngestProperties properties;
+    private final ObjectMapper objectMapper;
+    // тот же валидатор, что проверяет @Valid-тело POST /api/robots/data
+    private final Validator mvcValidator;
+
+    @Override
+    public RobotBulkDataResponse ingest(InputStream ndjson, String robotCode) throws IOException {
+        List<FrameResult> results = new ArrayList<>();
+        List<RobotDataRequest> chunk = new ArrayList<>(properties.getBulkChunkSize());
+        List<Integer> chunkIndexes = new ArrayList<>(properties.getBulkChunkSize());
+
+        try (MappingIterator<RobotDataRequest> frames = objectMapper.readerFor(RobotDataRequest.class).readValues(ndjson)) {
+            int index = 0;
+            while (true) {
+                RobotDataRequest frame;
+                try {
+                    if (!frames.hasNextValue()) {
+                        break;
+                    }
+                    frame = frames.nextValue();
+                } catch (JsonProcessingException e) {
+                    // после синтаксической ошибки позиция в потоке не определена — остаток тела не разбирается
+                    results.add(withIndex(FrameResult.error("invalid", "Malformed frame: " + e.getOriginalMessage()), index));
+                    break;
+                }
+
+                FrameResult rejected = check(frame, robotCode);
+                if (rejected != null) {
+                    results.add(withIndex(rejected, index));
+                } else {
+                    chunk.add(frame);
+                    chunkIndexes.add(index);
+                    if (chunk.size() >= properties.getBulkChunkSize()) {
+                        flush(chunk, chunkIndexes, results);
+                    }
+                }
+                index++;
+            }
+        }
+        flush(chunk, chunkIndexes, results);
+
+        results.sort(Comparator.comparingInt(FrameResult::getIndex));
+        int failed = (int) results.stream().filter(FrameResult::isFailed).count();
+        log.debug("Bulk ingest for robot {}: {} frames, {} failed", robotCode, results.size(), failed);
+        return new RobotBulkDataResponse(results.size() - failed, failed, results);
+    }
+
+    private FrameResult check(RobotDataRequest frame, String robotCode) {
+        if (frame == null) {
+            return FrameResult.error("invalid", "Empty frame");
+        }
+        Errors errors = new BeanPropertyBindingResult(frame, "frame");
+        mvcValidator.validate(frame, errors);
+        if (errors.hasErrors()) {
+            return FrameResult.error("invalid", errors.getFieldErrors().stream()
+                    .map(e -> e.getField() + ": " + e.getDefaultMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (frame.getCode() == null) {
+            return FrameResult.error("invalid", "code: must not be blank");
+        }
+        if (!frame.getCode().equals(robotCode)) {
+            return FrameResult.error("forbidden", "Frame code does not match authenticated robot");
+        }
+        return null;
+    }
+
+    private void flush(List<RobotDataRequest> chunk, List<Integer> indexes, List<FrameResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<FrameResult> chunkResults = robotIngestService.acceptAll(chunk);
+        for (int i = 0; i < chunkResults.size(); i++) {
+            results.add(withIndex(chunkResults.get(i), indexes.get(i)));
+        }
+        chunk.clear();
+        indexes.clear();
+    }
+
+    private static FrameResult withIndex(FrameResult result, int index) {
+        result.setIndex(index);
+        return result;
+    }
+}
@@ -1,30 +1,27 @@
 package ru.rtc.warehouse.robot.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import ru.rtc.warehouse.config.RobotProperties;
 import ru.rtc.warehouse.exception.NotFoundException;
 import ru.rtc.warehouse.inventory.mapper.InventoryStatusReferenceMapper;
 import ru.rtc.warehouse.inventory.model.InventoryHistory;
 import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus;
 import ru.rtc.warehouse.inventory.service.InventoryHistoryEntityService;
+import ru.rtc.warehouse.location.cache.LocationGridIndex;
 import ru.rtc.warehouse.location.dto.LocationDTO;
-import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
 import ru.rtc.warehouse.location.model.Location;
-import ru.rtc.warehouse.location.service.LocationMetricsService;
-import ru.rtc.warehouse.location.service.publisher.LocationTelemetryPublisher;
 import ru.rtc.warehouse.product.model.Product;
 import ru.rtc.warehouse.robot.controller.dto.ScanResultDTO;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
 import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+import ru.rtc.warehouse.robot.model.IngestedFrame;
 import ru.rtc.warehouse.robot.model.Robot;
+import ru.rtc.warehouse.robot.repository.IngestedFrameRepository;
 import ru.rtc.warehouse.robot.service.RobotDataService;
 import ru.rtc.warehouse.robot.service.RobotEntityService;
 import ru.rtc.warehouse.robot.service.adapter.InventoryHistoryAdapter;
@@ -35,52 +32,69 @@ import ru.rtc.warehouse.warehouse.model.Warehouse;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RobotDataServiceImpl implements RobotDataService {
 
-    private final RobotProperties robotProperties;
-
-
     private final RobotEntityService robotEntityService;
     private final InventoryHistoryEntityService inventoryHistoryEntityService;
     private final InventoryHistoryAdapter inventoryHistoryAdapter;
     private final LocationAdapter locationAdapter;
     private final ProductAdapter productAdapter;
-
-    private final StringRedisTemplate redisTemplate;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final ObjectMapper objectMapper; 
-
-    private final LocationMetricsService locationMetricsService;
-    private final LocationTelemetryPublisher locationTelemetryPublisher;
+    private final IngestedFrameRepository ingestedFrameRepository;
 
     private final InventoryStatusReferenceMapper inventoryStatusReferenceMapper;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public RobotDataResponse processRobotData(RobotDataRequest request) {
+        return processRobotData(request, newMessageIds(request), new HashMap<>());
+    }
+
+    @Override
+    @Transactional
+    public RobotDataResponse processRobotData(RobotDataRequest request, List<UUID> messageIds) {
+        return processRobotData(request, messageIds, new HashMap<>());
+    }
+
+    @Override
+    @Transactional
+    public RobotDataResponse processRobotData(RobotDataRequest request, Map<QuantityKey, Integer> carriedQuantities) {
+        return processRobotData(request, newMessageIds(request), carriedQuantities);
+    }
+
+    private RobotDataResponse processRobotData(RobotDataRequest request, List<UUID> messageIds,
+                                               Map<QuantityKey, Integer> quantities) {
+        if (messageIds.size() != request.getScanResults().size()) {
+            throw new IllegalArgumentException("Expected " + request.getScanResults().size()
+                    + " message ids, got " + messageIds.size());
+        }
+
+        String frameId = request.getFrameId();
+        if (frameId != null) {
+            Optional<List<UUID>> applied = findAppliedFrame(request.getCode(), frameId);
+            if (applied.isPresent()) {
+                return new RobotDataResponse("duplicate", applied.get());
+            }
+        }
 
         Robot robot = Optional.ofNullable(robotEntityService.findByCode(request.getCode()))
                 .orElseThrow(() -> new NotFoundException("Robot not found: " + request.getCode()));
 
-        robot.setBatteryLevel(request.getBatteryLevel());
-
         LocalDateTime scannedAt = LocalDateTime.ofInstant(request.getTimestamp(), ZoneOffset.UTC);
-        robot.setLastUpdate(scannedAt);
 
         LocationDTO locDto = request.getLocation();
         Location location = locationAdapter
                 .findByWarehouseAndZoneAndRowAndShelf(robot.getWarehouse(), locDto.getZone(), locDto.getRow(), locDto.getShelf())
                 .orElseThrow(() -> new NotFoundException("Location not found: " + locDto));
-        robot.setLocation(location);
 
-        robotEntityService.saveAndFlush(robot);
+        // заряд, время и локация робота не пишутся в robots в транзакции кадра:
+        // их фиксирует RobotLiveStateStore после коммита и сбрасывает в БД пачками
 
- 
         Warehouse robotWarehouse = robot.getWarehouse();
         if (robotWarehouse == null) {
             throw new NotFoundException("Robot is not assigned to any warehouse: " + robot.getCode());
@@ -88,28 +102,35 @@ public class RobotDataServiceImpl implements RobotDataService {
         validateLocationBounds(locDto, robotWarehouse);
 
 
-        List<UUID> messageIds = new ArrayList<>(request.getScanResults().size());
-        
-        List<Map<String, Object>> recentScansPayload = new ArrayList<>(request.getScanResults().size());
+        List<ScanResultDTO> scanResults = request.getScanResults();
+        List<InventoryHistory> histories = new ArrayList<>(scanResults.size());
+        List<RobotFrameAppliedEvent.Item> frameItems = new ArrayList<>(scanResults.size());
+
+        // Все справочные запросы кадра выполняются до сохранения истории: пока новые записи не переданы
+        // в persistence context, запросы не вызывают auto-flush, и INSERT-ы уходят одним JDBC-батчем.
+        Map<String, InventoryHistoryStatus> statuses = new HashMap<>();
+        Map<String, Product> products = new HashMap<>();
+        // quantities — последнее количество по товару в пределах кадра (и пачки): повторный скан сравнивается
+        // с предыдущим сканом, ещё не закоммиченным и потому не попавшим в кэш последних количеств
 
-        for (ScanResultDTO sr : request.getScanResults()) {
-            UUID messageId = UUID.randomUUID();
-            messageIds.add(messageId);
+        for (int i = 0; i < scanResults.size(); i++) {
+            ScanResultDTO sr = scanResults.get(i);
+            UUID messageId = messageIds.get(i);
             String productCode = sr.getProductCode();
             String productName = sr.getProductName();
             Integer quantity = sr.getQuantity();
-            InventoryHistoryStatus status = inventoryStatusReferenceMapper.mapStringToInventoryStatus(sr.getStatusCode());
+            InventoryHistoryStatus status = statuses.computeIfAbsent(sr.getStatusCode(),
+                    inventoryStatusReferenceMapper::mapStringToInventoryStatus);
 
+            Product product = products.computeIfAbsent(productCode, code -> resolveProduct(code, robotWarehouse));
 
-            Optional<ru.rtc.warehouse.inventory.model.InventoryHistory> lastOpt =
-                    inventoryHistoryAdapter.findLatestByProductCodeAndLocationAndWarehouse(productCode, location, robotWarehouse);
-            Integer previousQty = lastOpt.map(ru.rtc.warehouse.inventory.model.InventoryHistory::getQuantity).orElse(null);
+            QuantityKey key = new QuantityKey(robotWarehouse.getId(), location.getId(), product.getId());
+            Integer previousQty = quantities.containsKey(key)
+                    ? quantities.get(key)
+                    : inventoryHistoryAdapter.findLatestQuantity(product, location, robotWarehouse).orElse(null);
             Integer expectedQty = previousQty != null ? previousQty : 0;
             Integer diff = quantity == null ? null : (quantity - expectedQty);
-
-            Product product = productAdapter.findByCodeAndWarehouse(productCode, robotWarehouse)
-                    .orElseGet(() -> productAdapter.findByCode(productCode)
-                            .orElseThrow(() -> new NotFoundException("Product not found by sku-code: " + productCode)));
+            quantities.put(key, quantity);
 
             InventoryHistory history = new InventoryHistory();
             history.setRobot(robot);
@@ -122,76 +143,59 @@ public class RobotDataServiceImpl implements RobotDataService {
             history.setStatus(status);
             history.setScannedAt(scannedAt);
             history.setMessageId(messageId);
+            histories.add(history);
+            frameItems.add(new RobotFrameAppliedEvent.Item(product.getId(), productCode, productName,
+                    quantity, expectedQty, diff, status.getCode().name(), messageId));
 
-            inventoryHistoryEntityService.save(history);
-
-            LocationMetricsDTO metrics = locationMetricsService.computeFor(history.getLocation());
-            locationTelemetryPublisher.publish(metrics);
+        }
 
-            Map<String, Object> scanMap = new HashMap<>();
-            scanMap.put("productCode", productCode);
-            scanMap.put("productName", productName);
-            scanMap.put("quantity", quantity);
-            scanMap.put("status", status);
-            scanMap.put("diff", diff);
-            scanMap.put("scannedAt", scannedAt.toString());
-            recentScansPayload.add(scanMap);
+        inventoryHistoryEntityService.saveAll(histories);
+        if (frameId != null) {
+            // уникальный (robot_code, frame_id): параллельная переотправка того же кадра откатится на коммите
+            ingestedFrameRepository.save(IngestedFrame.builder()
+                    .robotCode(robot.getCode())
+                    .frameId(frameId)
+                    .messageIds(messageIds.toArray(UUID[]::new))
+                    .createdAt(LocalDateTime.now())
+                    .build());
         }
+        // состояние робота, Redis, WebSocket и метрики локаций обновляются слушателями события после коммита
+        eventPublisher.publishEvent(new RobotFrameAppliedEvent(this, robot.getCode(), robotWarehouse.getId(),
+                robotWarehouse.getCode(), location.getId(), locDto.getZone(), locDto.getRow(), locDto.getShelf(),
+                LocationGridIndex.cellIndex(robotWarehouse, locDto.getZone(), locDto.getRow(), locDto.getShelf()),
+                request.getBatteryLevel(), request.getNextCheckpoint(), scannedAt, frameItems,
+                histories.stream().map(InventoryHistory::getId).toList()));
 
+        return new RobotDataResponse("received", messageIds);
+    }
 
-        String redisKey = String.format(robotProperties.getRecentScansKeyTemplate(), robot.getCode());
-        try {
-            List<String> jsonList = recentScansPayload.stream()
-                    .map(scanMap -> {
-                        try {
-                            return objectMapper.writeValueAsString(scanMap);
-                        } catch (JsonProcessingException e) {
-                            log.warn("serialize error: {}", e.getMessage());
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            if (!jsonList.isEmpty()) {
-                redisTemplate.opsForList().rightPushAll(redisKey, jsonList);
-                long keep = robotProperties.getRecentScansLimit();
-                redisTemplate.opsForList().trim(redisKey, -keep, -1);
-                redisTemplate.expire(redisKey, java.time.Duration.ofDays(robotProperties.getRecentScansTtlDays()));
-            }
-        } catch (Exception e) {
-            log.warn("Redis push failed for robot {}: {}", robot.getCode(), e.getMessage());
+    private static List<UUID> newMessageIds(RobotDataRequest request) {
+        List<UUID> messageIds = new ArrayList<>(request.getScanResults().size());
+        for (int i = 0; i < request.getScanResults().size(); i++) {
+            messageIds.add(UUID.randomUUID());
         }
+        return messageIds;
+    }
 
-    
-        Map<String, Object> wsPayload = new HashMap<>();
-        wsPayload.put("type", "robot_update");
-        Map<String, Object> data = new HashMap<>();
-        data.put("robot_id", robot.getCode());
-        data.put("battery_level", robot.getBatteryLevel());
-        data.put("zone", robot.getLocation().getZone());
-        data.put("row", robot.getLocation().getRow());
-        data.put("shelf", robot.getLocation().getShelf());
-        data.put("next_checkpoint", request.getNextCheckpoint());
-        data.put("timestamp", scannedAt.toString());
-        data.put("recent_scans", recentScansPayload.stream().limit(robotProperties.getRecentScansLimit()).collect(Collectors.toList()));
-        wsPayload.put("data", data);
-
-        try {
-            String json = objectMapper.writeValueAsString(wsPayload);
-            redisTemplate.convertAndSend(robotProperties.getRedisChannel(), json);
-        } catch (Exception e) {
-            log.warn("Publish to redis channel failed, trying local WS publish for robot {}: {}", robot.getCode(), e.getMessage());
-            try {
-                messagingTemplate.convertAndSend(robotProperties.getWsGlobalTopic(), wsPayload);
-                String perRobotTopic = robotProperties.getWsRobotTopicPrefix() + "/" + robot.getCode();
-                messagingTemplate.convertAndSend(perRobotTopic, wsPayload);
-            } catch (Exception ex) {
-                log.warn("Fallback WS publish also failed: {}", ex.getMessage());
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<List<UUID>> findAppliedFrame(String robotCode, String frameId) {
+        return ingestedFrameRepository.findByRobotCodeAndFrameId(robotCode, frameId)
+                .map(f -> Arrays.asList(f.getMessageIds()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isFrameApplied(RobotDataRequest request, List<UUID> messageIds) {
+        if (request.getFrameId() != null && findAppliedFrame(request.getCode(), request.getFrameId()).isPresent()) {
+            return true;
         }
+        return !messageIds.isEmpty() && inventoryHistoryEntityService.existsByMessageId(messageIds.get(0));
+    }
 
-        return new RobotDataResponse("received", messageIds);
+    private Product resolveProduct(String productCode, Warehouse warehouse) {
+        return productAdapter.resolveForScan(productCode, warehouse)
+                .orElseThrow(() -> new NotFoundException("Product not found by sku-code: " + productCode));
     }
 
     private void validateLocationBounds(LocationDTO loc, Warehouse warehouse) {
@@ -1,13 +1,14 @@
 package ru.rtc.warehouse.robot.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.exception.NotFoundException;
 import ru.rtc.warehouse.location.model.Location;
-import ru.rtc.warehouse.location.repository.LocationRepository;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotCreateRequest;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotUpdateRequest;
+import ru.rtc.warehouse.robot.events.RobotChangedEvent;
 import ru.rtc.warehouse.robot.mapper.RobotMapper;
 import ru.rtc.warehouse.robot.model.Robot;
 import ru.rtc.warehouse.robot.model.RobotStatus;
@@ -15,6 +16,7 @@ import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
 import ru.rtc.warehouse.robot.service.RobotEntityService;
 import ru.rtc.warehouse.robot.service.RobotService;
 import ru.rtc.warehouse.robot.service.RobotStatusService;
+import ru.rtc.warehouse.robot.service.adapter.LocationAdapter;
 import ru.rtc.warehouse.robot.service.adapter.RobotAuthAdapter;
 import ru.rtc.warehouse.robot.service.adapter.WarehouseAdapter;
 import ru.rtc.warehouse.robot.service.dto.RobotDTO;
@@ -35,7 +37,8 @@ public class RobotServiceImpl implements RobotService {
 	private final WarehouseAdapter warehouseAdapter;
     private final RobotAuthAdapter robotAuthAdapter;
 
-	private final LocationRepository locationRepository;
+	private final LocationAdapter locationAdapter;
+	private final ApplicationEventPublisher eventPublisher;
 
 	private String generateUniqueRobotId() {
 		Integer maxNumber = robotEntityService.findMaxRobotNumber();
@@ -55,7 +58,7 @@ public class RobotServiceImpl implements RobotService {
 		Warehouse warehouse = warehouseAdapter.findById(req.getWarehouseId());
 		robot.setWarehouse(warehouse);
 
-		Location location = locationRepository
+		Location location = locationAdapter
 					.findByWarehouseAndZoneAndRowAndShelf(
 						warehouse, req.getCurrentZone(),
 						req.getCurrentRow(), req.getCurrentShelf())
@@ -94,7 +97,7 @@ public class RobotServiceImpl implements RobotService {
 			Integer shelf = updateRequest.getCurrentShelf() != null ? 
 				updateRequest.getCurrentShelf() : robot.getLocation().getShelf();
 
-			Location newLocation = locationRepository
+			Location newLocation = locationAdapter
 				.findByWarehouseAndZoneAndRowAndShelf(warehouse, zone, row, shelf)
 				.orElseThrow(() -> new NotFoundException("Location not found with new coordinates"));
 			
@@ -103,6 +106,8 @@ public class RobotServiceImpl implements RobotService {
 
 		robot.setLastUpdate(LocalDateTime.now());
 		robotEntityService.update(robot);
+		// ручное изменение новее последнего кадра — оперативное состояние сбрасывается после коммита
+		eventPublisher.publishEvent(new RobotChangedEvent(this, robot.getCode()));
 	}
 
 	@Override
@@ -125,7 +130,11 @@ public class RobotServiceImpl implements RobotService {
 
 	@Override
 	public void delete(Long id) {
+		Robot robot = robotEntityService.findById(id);
+		// токены удаляются раньше робота: robot_tokens ссылается на robots
+		robotAuthAdapter.deleteRobotTokens(robot);
 		robotEntityService.delete(id);
+		eventPublisher.publishEvent(new RobotChangedEvent(this, robot.getCode()));
 	}
 
 	@Override
@@ -1,18 +1,26 @@
 package ru.rtc.warehouse.robot.service.impl;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import ru.rtc.warehouse.config.RobotProperties;
+import ru.rtc.warehouse.config.messaging.RobotChannelCodec;
+import ru.rtc.warehouse.dashboard.publisher.RealtimePushScheduler;
+import ru.rtc.warehouse.dashboard.redis.RealtimeMetricsWriter;
+import ru.rtc.warehouse.robot.cache.RobotLiveState;
+import ru.rtc.warehouse.robot.cache.RobotLiveStateStore;
 import ru.rtc.warehouse.robot.controller.dto.request.RobotStatusRequest;
+import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
+import ru.rtc.warehouse.robot.service.RobotEntityService;
 import ru.rtc.warehouse.robot.service.RobotTelemetryService;
 
 @Service
@@ -21,24 +29,45 @@ import ru.rtc.warehouse.robot.service.RobotTelemetryService;
 public class RobotTelemetryServiceImpl implements RobotTelemetryService {
 
     private final StringRedisTemplate redisTemplate;
-    private final RobotProperties robotProperties;
-    private final ObjectMapper objectMapper;
+    private final RobotChannelCodec channelCodec;
+    private final RobotLiveStateStore liveStateStore;
+    private final RobotEntityService robotEntityService;
+    private final RealtimeMetricsWriter metricsWriter;
+    private final RealtimePushScheduler realtimePushScheduler;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Heartbeat сворачивается в {@link RobotLiveStateStore}: строка robots обновляется только при смене статуса
+     * (батчем, при очередном flush), realtime-метрики — только когда изменились статус или заряд.
+     */
     public void publishStatus(RobotStatusRequest req) throws JsonProcessingException {
+        StatusCode status = StatusCode.from(req.getStatus());
+        String robotCode = req.getRobotId();
 
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("type", "robot_status");
-            Map<String, Object> data = new HashMap<>();
-            data.put("robot_id", req.getRobotId());
-            data.put("status", req.getStatus());
-            data.put("timestamp", req.getTimestamp() != null ? req.getTimestamp().toString() : null);
-            data.put("battery_level", req.getBatteryLevel());
-            data.put("last_data_sent", req.getLastDataSent() != null ? req.getLastDataSent().toString() : null);
-            payload.put("data", data);
+        if (!liveStateStore.isSeeded(robotCode)) {
+            // первый heartbeat робота на этом инстансе — исходный статус и склад берутся из БД
+            transactionTemplate.executeWithoutResult(tx ->
+                    liveStateStore.seed(robotEntityService.findByCode(robotCode)));
+        }
 
-            String json = objectMapper.writeValueAsString(payload);
-            redisTemplate.convertAndSend(robotProperties.getRedisChannel(), json);
+        LocalDateTime at = LocalDateTime.ofInstant(req.getTimestamp(), ZoneOffset.UTC);
+        if (liveStateStore.recordHeartbeat(robotCode, status, req.getBatteryLevel(), at)) {
+            RobotLiveState state = liveStateStore.find(robotCode).orElseThrow();
+            metricsWriter.onRobotState(state.warehouseCode(), robotCode, state.status(), state.batteryLevel());
+            realtimePushScheduler.markDirty(state.warehouseCode());
+        }
 
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "robot_status");
+        Map<String, Object> data = new HashMap<>();
+        data.put("robot_id", req.getRobotId());
+        data.put("status", req.getStatus());
+        data.put("timestamp", req.getTimestamp() != null ? req.getTimestamp().toString() : null);
+        data.put("battery_level", req.getBatteryLevel());
+        data.put("last_data_sent", req.getLastDataSent() != null ? req.getLastDataSent().toString() : null);
+        payload.put("data", data);
+
+        channelCodec.publish(redisTemplate, payload);
     }
     
 }
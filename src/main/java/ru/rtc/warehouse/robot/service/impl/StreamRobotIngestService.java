@@ -0,0 +1,91 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.exception.IngestOverloadedException;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.ingest.IngestEnvelope;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.IngestStreams;
+import ru.rtc.warehouse.robot.ingest.RecentFrameRegistry;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Приём кадров через Redis Streams: кадр добавляется в поток партиции своего склада и сразу подтверждается
+ * роботу, а применяют его узлы, владеющие партицией ({@link IngestStreams}). Принимать кадры может любой узел,
+ * балансировщику не нужно знать о роботах.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "warehouse.robot.ingest", name = "mode", havingValue = "stream")
+public class StreamRobotIngestService implements RobotIngestService {
+
+    private final RobotIngestProperties properties;
+    private final ObjectMapper objectMapper;
+    private final RecentFrameRegistry recentFrames;
+    private final IngestPartitioner partitioner;
+    private final IngestStreams streams;
+
+    @Override
+    public RobotDataResponse accept(RobotDataRequest request) {
+        List<UUID> messageIds = new ArrayList<>(request.getScanResults().size());
+        for (int i = 0; i < request.getScanResults().size(); i++) {
+            messageIds.add(UUID.randomUUID());
+        }
+
+        // переотправка на этот же узел получает исходные messageIds; дубли между узлами отсекает ingested_frames
+        String frameId = request.getFrameId();
+        if (frameId != null) {
+            List<UUID> known = recentFrames.putIfAbsent(request.getCode(), frameId, messageIds);
+            if (known != null) {
+                return new RobotDataResponse("duplicate", known);
+            }
+        }
+
+        int partition = partitioner.partitionOf(request, streams.partitions());
+        if (streams.lag(partition) >= properties.getMaxPendingFrames()) {
+            forget(request);
+            throw new IngestOverloadedException("Ingest backlog is full, retry later",
+                    Math.max(1, properties.getRetryDelayMillis() / 1000));
+        }
+
+        try {
+            String payload = objectMapper.writeValueAsString(new IngestEnvelope(messageIds, request, Instant.now()));
+            streams.append(partition, payload);
+        } catch (JsonProcessingException e) {
+            forget(request);
+            throw new IllegalArgumentException("Unserializable robot frame", e);
+        } catch (RuntimeException e) {
+            forget(request);
+            throw e;
+        }
+        return new RobotDataResponse("accepted", messageIds);
+    }
+
+    @Override
+    public long backlog() {
+        long lag = 0;
+        for (int p = 0; p < streams.partitions(); p++) {
+            lag += streams.lag(p);
+        }
+        return lag;
+    }
+
+    private void forget(RobotDataRequest request) {
+        if (request.getFrameId() != null) {
+            recentFrames.remove(request.getCode(), request.getFrameId());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.rtc.warehouse.exception.IngestOverloadedException;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse.FrameResult;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.ingest.IngestLanes;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.RecentFrameRegistry;
+import ru.rtc.warehouse.robot.service.RobotDataService;
+import ru.rtc.warehouse.robot.service.RobotDataService.QuantityKey;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Синхронный приём: кадр применяется полосой своей партиции ({@link IngestLanes}), поток запроса
+ * дожидается результата. Кадры одного склада не применяются конкурентно, поэтому expectedQuantity
+ * и difference считаются от действительно предыдущего скана.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "warehouse.robot.ingest", name = "mode", havingValue = "sync", matchIfMissing = true)
+public class SyncRobotIngestService implements RobotIngestService {
+
+    private final RobotDataService robotDataService;
+    private final RecentFrameRegistry recentFrames;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestLanes lanes;
+    private final IngestPartitioner partitioner;
+
+    @Override
+    public RobotDataResponse accept(RobotDataRequest request) {
+        return await(submit(partitioner.partitionOf(request), () -> apply(request)));
+    }
+
+    @Override
+    public long backlog() {
+        long queued = 0;
+        for (int i = 0; i < lanes.size(); i++) {
+            queued += lanes.queued(i);
+        }
+        return queued;
+    }
+
+    /**
+     * Кадры пачки группируются по партициям с сохранением порядка; группы применяются своими полосами
+     * параллельно, каждая — транзакциями по {@link #applyChunk(List)}.
+     */
+    @Override
+    public List<FrameResult> acceptAll(List<RobotDataRequest> requests) {
+        Map<Integer, List<Integer>> byPartition = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            byPartition.computeIfAbsent(partitioner.partitionOf(requests.get(i)), p -> new ArrayList<>()).add(i);
+        }
+
+        Map<Integer, CompletableFuture<List<FrameResult>>> futures = new LinkedHashMap<>();
+        FrameResult[] results = new FrameResult[requests.size()];
+        for (Map.Entry<Integer, List<Integer>> e : byPartition.entrySet()) {
+            List<RobotDataRequest> group = e.getValue().stream().map(requests::get).toList();
+            try {
+                futures.put(e.getKey(), lanes.submit(e.getKey(), () -> applyChunk(group)));
+            } catch (RejectedExecutionException ex) {
+                for (int index : e.getValue()) {
+                    results[index] = FrameResult.error("overloaded", "Ingest partition queue is full, retry later");
+                }
+            }
+        }
+        for (Map.Entry<Integer, CompletableFuture<List<FrameResult>>> e : futures.entrySet()) {
+            List<Integer> indexes = byPartition.get(e.getKey());
+            List<FrameResult> groupResults = await(e.getValue());
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResults.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    private RobotDataResponse apply(RobotDataRequest request) {
+        String frameId = request.getFrameId();
+        if (frameId == null) {
+            return robotDataService.processRobotData(request);
+        }
+
+        List<UUID> known = recentFrames.find(request.getCode(), frameId);
+        if (known != null) {
+            return new RobotDataResponse("duplicate", known);
+        }
+        try {
+            RobotDataResponse response = robotDataService.processRobotData(request);
+            recentFrames.put(request.getCode(), frameId, response.getMessageId());
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // параллельная переотправка того же кадра успела закоммититься первой
+            List<UUID> applied = robotDataService.findAppliedFrame(request.getCode(), frameId).orElseThrow(() -> e);
+            recentFrames.put(request.getCode(), frameId, applied);
+            return new RobotDataResponse("duplicate", applied);
+        }
+    }
+
+    /**
+     * Пачка кадров пишется одной транзакцией: один коммит и один проход слушателей после него вместо
+     * коммита на каждый кадр. Если пачка откатилась (ошибка кадра или конфликт frameId), кадры
+     * применяются по одному, и ошибка попадает только в результат своего кадра.
+     */
+    private List<FrameResult> applyChunk(List<RobotDataRequest> requests) {
+        List<RobotDataResponse> responses;
+        try {
+            responses = transactionTemplate.execute(status -> {
+                List<RobotDataResponse> applied = new ArrayList<>(requests.size());
+                // количества, записанные предыдущими кадрами пачки, ещё не закоммичены и не попали в кэш
+                Map<QuantityKey, Integer> chunkQuantities = new HashMap<>();
+                for (RobotDataRequest request : requests) {
+                    List<UUID> known = request.getFrameId() == null ? null
+                            : recentFrames.find(request.getCode(), request.getFrameId());
+                    applied.add(known != null
+                            ? new RobotDataResponse("duplicate", known)
+                            : robotDataService.processRobotData(request, chunkQuantities));
+                }
+                return applied;
+            });
+        } catch (RuntimeException e) {
+            log.debug("Bulk chunk of {} frames rolled back, retrying frame by frame: {}", requests.size(), e.getMessage());
+            return applyEach(requests);
+        }
+
+        List<FrameResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            RobotDataRequest request = requests.get(i);
+            RobotDataResponse response = responses.get(i);
+            if (request.getFrameId() != null) {
+                recentFrames.put(request.getCode(), request.getFrameId(), response.getMessageId());
+            }
+            results.add(FrameResult.of(response));
+        }
+        return results;
+    }
+
+    /**
+     * Покадровое применение внутри полосы (без повторной постановки в очередь).
+     */
+    private List<FrameResult> applyEach(List<RobotDataRequest> requests) {
+        RobotIngestService direct = new RobotIngestService() {
+            @Override
+            public RobotDataResponse accept(RobotDataRequest request) {
+                return apply(request);
+            }
+
+            @Override
+            public long backlog() {
+                return 0;
+            }
+        };
+        return direct.acceptEach(requests);
+    }
+
+    private <T> CompletableFuture<T> submit(int partition, Supplier<T> task) {
+        try {
+            return lanes.submit(partition, task);
+        } catch (RejectedExecutionException e) {
+            throw new IngestOverloadedException("Ingest partition queue is full, retry later", 1);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.rtc.warehouse.robot.service.publisher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.rtc.warehouse.config.RobotProperties;
+import ru.rtc.warehouse.config.messaging.RobotChannelCodec;
+import ru.rtc.warehouse.dashboard.redis.RealtimeMetricsWriter;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Побочные эффекты кадра робота в Redis: recent_scans, сообщение robot_update в канал
+ * {@code ws:robot_updates} и realtime-счётчики дашборда. Все команды кадра уходят одним пайплайном.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RobotFrameRedisPublisher {
+
+    private final RobotProperties robotProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final RobotChannelCodec channelCodec;
+    private final RealtimeMetricsWriter realtimeMetricsWriter;
+
+    // раньше realtime-рассылки статистики, которая читает записанные здесь счётчики
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFrameApplied(RobotFrameAppliedEvent event) {
+        String scannedAt = event.getScannedAt().toString();
+        List<Map<String, Object>> recentScans = new ArrayList<>(event.getItems().size());
+        List<String> scanJson = new ArrayList<>(event.getItems().size());
+        for (RobotFrameAppliedEvent.Item item : event.getItems()) {
+            Map<String, Object> scanMap = new HashMap<>();
+            scanMap.put("productCode", item.getProductCode());
+            scanMap.put("productName", item.getProductName());
+            scanMap.put("quantity", item.getQuantity());
+            scanMap.put("status", item.getStatusCode());
+            scanMap.put("diff", item.getDifference());
+            scanMap.put("scannedAt", scannedAt);
+            recentScans.add(scanMap);
+            try {
+                scanJson.add(objectMapper.writeValueAsString(scanMap));
+            } catch (JsonProcessingException e) {
+                log.warn("serialize error: {}", e.getMessage());
+            }
+        }
+
+        Map<String, Object> wsPayload = new HashMap<>();
+        wsPayload.put("type", "robot_update");
+        Map<String, Object> data = new HashMap<>();
+        data.put("robot_id", event.getRobotCode());
+        // код склада в сообщении избавляет подписчика от поиска robot -> warehouse
+        data.put("warehouse_code", event.getWarehouseCode());
+        data.put("battery_level", event.getBatteryLevel());
+        data.put("zone", event.getZone());
+        data.put("row", event.getRow());
+        data.put("shelf", event.getShelf());
+        data.put("next_checkpoint", event.getNextCheckpoint());
+        data.put("timestamp", scannedAt);
+        data.put("recent_scans", recentScans.stream().limit(robotProperties.getRecentScansLimit()).toList());
+        wsPayload.put("data", data);
+
+        String redisKey = String.format(robotProperties.getRecentScansKeyTemplate(), event.getRobotCode());
+        long keep = robotProperties.getRecentScansLimit();
+        long ttlSeconds = robotProperties.getRecentScansTtlDays() * 24 * 3600;
+
+        try {
+            byte[] wsMessage = channelCodec.encode(wsPayload);
+            byte[] channel = channelCodec.channel();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                if (!scanJson.isEmpty()) {
+                    conn.rPush(redisKey, scanJson.toArray(String[]::new));
+                    conn.lTrim(redisKey, -keep, -1);
+                    conn.expire(redisKey, ttlSeconds);
+                }
+                conn.publish(channel, wsMessage);
+                realtimeMetricsWriter.appendFrame(conn, event);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Redis pipeline failed, trying local WS publish for robot {}: {}", event.getRobotCode(), e.getMessage());
+            try {
+                messagingTemplate.convertAndSend(robotProperties.getWsGlobalTopic(), wsPayload);
+                String perRobotTopic = robotProperties.getWsRobotTopicPrefix() + "/" + event.getRobotCode();
+                messagingTemplate.convertAndSend(perRobotTopic, wsPayload);
+            } catch (Exception ex) {
+                log.warn("Fallback WS publish also failed: {}", ex.getMessage());
+            }
+        }
+    }
+}
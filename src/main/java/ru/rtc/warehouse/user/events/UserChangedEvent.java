@@ -0,0 +1,18 @@
+package ru.rtc.warehouse.user.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Событие: изменены пользователь или роли. {@code email == null} — затронуты все пользователи
+ * (удаление по id, изменение роли).
+ */
+@Getter
+public class UserChangedEvent extends ApplicationEvent {
+	private final String email;
+
+	public UserChangedEvent(Object source, String email) {
+		super(source);
+		this.email = email;
+	}
+}
@@ -1,9 +1,11 @@
 package ru.rtc.warehouse.user.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.user.events.UserChangedEvent;
 import ru.rtc.warehouse.user.model.Role;
 import ru.rtc.warehouse.user.repository.RoleRepository;
 import ru.rtc.warehouse.user.service.RoleService;
@@ -15,6 +17,7 @@ import java.util.List;
 public class RoleServiceImpl implements RoleService {
 
 	private final RoleRepository repository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Override
 	public Role save(Role role) {
@@ -23,7 +26,9 @@ public class RoleServiceImpl implements RoleService {
 
 	@Override
 	public Role update(Role role) {
-		return repository.save(role);
+		Role saved = repository.save(role);
+		eventPublisher.publishEvent(new UserChangedEvent(this, null));
+		return saved;
 	}
 
 	@Override
@@ -42,6 +47,7 @@ public class RoleServiceImpl implements RoleService {
 	@Override
 	public void delete(Long id) {
 		repository.deleteById(id);
+		eventPublisher.publishEvent(new UserChangedEvent(this, null));
 	}
 
 	@Override
@@ -1,9 +1,11 @@
 package ru.rtc.warehouse.user.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.rtc.warehouse.exception.NotFoundException;
+import ru.rtc.warehouse.user.events.UserChangedEvent;
 import ru.rtc.warehouse.user.model.User;
 import ru.rtc.warehouse.user.repository.UserRepository;
 import ru.rtc.warehouse.user.service.UserEntityService;
@@ -15,6 +17,7 @@ import java.util.List;
 public class UserEntityServiceImpl implements UserEntityService {
 
 	private final UserRepository userRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Override
 	public User save(User user) {
@@ -23,7 +26,9 @@ public class UserEntityServiceImpl implements UserEntityService {
 
 	@Override
 	public User update(User user) {
-		return userRepository.save(user);
+		User saved = userRepository.save(user);
+		eventPublisher.publishEvent(new UserChangedEvent(this, saved.getEmail()));
+		return saved;
 	}
 
 	@Override
@@ -42,6 +47,7 @@ public class UserEntityServiceImpl implements UserEntityService {
 	@Override
 	public void delete(Long id) {
 		userRepository.deleteById(id);
+		eventPublisher.publishEvent(new UserChangedEvent(this, null));
 	}
 
 	@Override
@@ -18,4 +18,8 @@ public class LocationServiceAdapter {
 		return locationService.generateLocationsForWarehouse(warehouse);
 	}
 
+	public void invalidateLocationIndex(Long warehouseId) {
+		locationService.invalidateLocationIndex(warehouseId);
+	}
+
 }
@@ -78,6 +78,10 @@ public class WarehouseServiceImpl implements WarehouseService {
 		}
 
 		warehouseEntityService.update(warehouse);
+
+		if (dimensionsChanged) {
+			locationServiceAdapter.invalidateLocationIndex(warehouse.getId());
+		}
 	}
 	@Override
 	public List<WarehouseDTO> findAll() {
@@ -97,6 +101,7 @@ public class WarehouseServiceImpl implements WarehouseService {
 	@Override
 	public void delete(Long id) {
 		warehouseEntityService.delete(id);
+		locationServiceAdapter.invalidateLocationIndex(id);
 	}
 
 	@Override
@@ -14,6 +14,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.rtc.warehouse.auth.controller.dto.request.AuthRequest;
 import ru.rtc.warehouse.auth.controller.dto.request.RefreshRequest;
+import ru.rtc.warehouse.auth.util.TokenDigest;
 import ru.rtc.warehouse.auth.controller.dto.request.RegisterRequest;
 
 import java.nio.charset.StandardCharsets;
@@ -122,11 +123,11 @@ class AuthControllerIT {
         ok("Пользователь создан с ролью VIEWER");
 
         assertThat(qStrList("""
-                select token from refresh_tokens where user_id = (select id from users where email = ?)
+                select token_hash from refresh_tokens where user_id = (select id from users where email = ?)
             """, email))
                 .as("ровно 1 refresh после регистрации")
                 .hasSize(1)
-                .containsExactly(regRefresh);
+                .containsExactly(TokenDigest.sha256Hex(regRefresh));
         ok("В БД один refresh-товкен и он совпадает с ответом REGISTER");
 
         // LOGIN (перегенерация refresh: deleteAllByUser -> create new)
@@ -152,12 +153,12 @@ class AuthControllerIT {
         // DB asserts после LOGIN
         step("DB ASSERTS: после LOGIN");
         var tokensAfterLogin = qStrList("""
-                select token from refresh_tokens where user_id = (select id from users where email = ?)
+                select token_hash from refresh_tokens where user_id = (select id from users where email = ?)
             """, email);
         assertThat(tokensAfterLogin)
                 .as("после login должен остаться один refresh (старые удалены)")
                 .hasSize(1);
-        assertThat(tokensAfterLogin.get(0)).isEqualTo(loginRefresh);
+        assertThat(tokensAfterLogin.get(0)).isEqualTo(TokenDigest.sha256Hex(loginRefresh));
         ok("Старый refresh удалён, новый записан");
 
         // REFRESH (удаляет все и создаёт новый)
@@ -183,12 +184,15 @@ class AuthControllerIT {
 
         // DB asserts после REFRESH
         step("DB ASSERTS: после REFRESH");
-        assertThat(qInt("select count(*) from refresh_tokens where token = ?", loginRefresh))
+        assertThat(qInt("select count(*) from refresh_tokens where token_hash = ?", TokenDigest.sha256Hex(loginRefresh)))
                 .as("старого токена больше нет в БД")
                 .isZero();
-        assertThat(qInt("select count(*) from refresh_tokens where token = ?", newRefresh))
+        assertThat(qInt("select count(*) from refresh_tokens where token_hash = ?", TokenDigest.sha256Hex(newRefresh)))
                 .as("новый токен записан")
                 .isEqualTo(1);
+        assertThat(qStrList("select token_hash from refresh_tokens"))
+                .as("исходные значения токенов в БД не хранятся")
+                .doesNotContain(loginRefresh, newRefresh);
         ok("Состояние refresh_tokens соответствует ожиданиям");
 
         // LOGOUT (revoked=true)
@@ -203,7 +207,7 @@ class AuthControllerIT {
 
         // DB asserts после LOGOUT
         step("DB ASSERTS: после LOGOUT");
-        Boolean revoked = qBool("select revoked from refresh_tokens where token = ?", newRefresh);
+        Boolean revoked = qBool("select revoked from refresh_tokens where token_hash = ?", TokenDigest.sha256Hex(newRefresh));
         assertThat(revoked).isTrue();
         ok("Токен помечен revoked=true");
     }
@@ -0,0 +1,95 @@
+package ru.rtc.warehouse.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.configuration.TestRedisContainerConfig;
+import ru.rtc.warehouse.robot.ingest.IngestStreamLeases;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Аренды партиций потоков приёма на реальном Redis (Testcontainers).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestRedisContainerConfig.class)
+@DisplayName("IngestStreamLeases IT (реальный Redis через Testcontainers)")
+class IngestStreamLeasesIT {
+
+    @Autowired StringRedisTemplate rt;
+
+    private RobotIngestProperties.Stream cfg;
+
+    @BeforeEach
+    void setUp() {
+        rt.getConnectionFactory().getConnection().serverCommands().flushDb();
+        cfg = new RobotIngestProperties.Stream();
+        cfg.setPartitions(4);
+    }
+
+    @Test
+    @DisplayName("Второй узел забирает половину партиций, первый отпускает их через onRevoked")
+    void secondNodeTakesFairShare() {
+        IngestStreamLeases a = new IngestStreamLeases(rt, cfg, "node-a");
+        IngestStreamLeases b = new IngestStreamLeases(rt, cfg, "node-b");
+        List<Integer> revokedFromA = new ArrayList<>();
+
+        assertThat(a.rebalance(revokedFromA::add)).hasSize(4);
+
+        // b зарегистрирован, но все аренды ещё у a
+        assertThat(b.rebalance(p -> true)).isEmpty();
+
+        Set<Integer> ownedByA = a.rebalance(revokedFromA::add);
+        assertThat(ownedByA).hasSize(2);
+        assertThat(revokedFromA).hasSize(2);
+
+        Set<Integer> ownedByB = b.rebalance(p -> true);
+        assertThat(ownedByB).hasSize(2);
+
+        Set<Integer> all = new HashSet<>(ownedByA);
+        all.addAll(ownedByB);
+        assertThat(all).containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("После releaseAll партиции достаются оставшемуся узлу")
+    void releasedPartitionsAreTakenOver() {
+        IngestStreamLeases a = new IngestStreamLeases(rt, cfg, "node-a");
+        IngestStreamLeases b = new IngestStreamLeases(rt, cfg, "node-b");
+
+        a.rebalance(p -> true);
+        a.releaseAll(p -> true);
+
+        assertThat(b.rebalance(p -> true)).containsExactlyInAnyOrder(0, 1, 2, 3);
+        assertThat(rt.opsForValue().get(cfg.lease(0))).isEqualTo("node-b");
+    }
+
+    @Test
+    @DisplayName("Лишняя аренда не отпускается, пока партиция ещё обрабатывается")
+    void busyPartitionKeepsItsLease() {
+        IngestStreamLeases a = new IngestStreamLeases(rt, cfg, "node-a");
+        IngestStreamLeases b = new IngestStreamLeases(rt, cfg, "node-b");
+
+        a.rebalance(p -> true);
+        b.rebalance(p -> true);
+
+        // поток партиций a ещё не остановился — аренды продлеваются, b ничего не получает
+        assertThat(a.rebalance(p -> false)).hasSize(4);
+        assertThat(b.rebalance(p -> true)).isEmpty();
+
+        assertThat(a.rebalance(p -> true)).hasSize(2);
+        assertThat(b.rebalance(p -> true)).hasSize(2);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.rtc.warehouse.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.configuration.TestRedisContainerConfig;
+import ru.rtc.warehouse.inventory.cache.LastQuantityIndex;
+import ru.rtc.warehouse.location.cache.LocationMetricsRegistry;
+import ru.rtc.warehouse.location.dto.LocationDTO;
+import ru.rtc.warehouse.robot.controller.dto.ScanResultDTO;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.ingest.IngestEnvelope;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.IngestStreams;
+import ru.rtc.warehouse.robot.service.RobotDataService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Передача партиции потока приёма другому узлу, пока старый владелец применяет медленный кадр
+ * (реальный Redis через Testcontainers).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestRedisContainerConfig.class)
+@DisplayName("IngestStreams rebalance IT (реальный Redis через Testcontainers)")
+class IngestStreamsRebalanceIT {
+
+    // при двух узлах node-a отдаёт старшую партицию
+    private static final int PARTITION = 1;
+
+    @Autowired StringRedisTemplate rt;
+
+    private final ObjectMapper om = new ObjectMapper().findAndRegisterModules();
+    private final List<IngestStreams> nodes = new ArrayList<>();
+
+    private final RobotIngestProperties.Stream cfg = properties("it").getStream();
+
+    @BeforeEach
+    void setUp() {
+        rt.getConnectionFactory().getConnection().serverCommands().flushDb();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(IngestStreams::shutdown);
+    }
+
+    @Test
+    @DisplayName("Партиция не передаётся, пока старый владелец применяет кадр; кадры применяются по одному и по порядку")
+    void partitionIsHandedOverOnlyAfterTheSlowFrame() throws Exception {
+        CountDownLatch slowFrameStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowFrame = new CountDownLatch(1);
+        List<String> applied = new CopyOnWriteArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        RobotDataService robotDataService = mock(RobotDataService.class);
+        when(robotDataService.processRobotData(any(RobotDataRequest.class), anyList())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                String frameId = inv.getArgument(0, RobotDataRequest.class).getFrameId();
+                if (frameId.equals("f-1")) {
+                    slowFrameStarted.countDown();
+                    releaseSlowFrame.await(10, TimeUnit.SECONDS);
+                }
+                applied.add(frameId);
+                return null;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        IngestStreams a = node("node-a", robotDataService);
+        for (int i = 1; i <= 3; i++) {
+            a.append(PARTITION, envelope("f-" + i));
+        }
+        a.start();
+        assertThat(slowFrameStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // второй узел претендует на половину партиций, но node-a ещё применяет f-1
+        node("node-b", robotDataService).start();
+        Thread.sleep(3 * cfg.getLeaseTtl().toMillis());
+        assertThat(rt.opsForValue().get(cfg.lease(PARTITION))).isEqualTo("node-a");
+        assertThat(applied).isEmpty();
+
+        releaseSlowFrame.countDown();
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(applied).containsExactly("f-1", "f-2", "f-3"));
+
+        assertThat(rt.opsForValue().get(cfg.lease(PARTITION))).isEqualTo("node-b");
+        assertThat(maxInFlight.get()).isEqualTo(1);
+    }
+
+    private IngestStreams node(String name, RobotDataService robotDataService) {
+        IngestStreams streams = new IngestStreams(properties(name), rt, robotDataService, om, new SimpleMeterRegistry(),
+                mock(IngestPartitioner.class), mock(LastQuantityIndex.class), mock(LocationMetricsRegistry.class));
+        nodes.add(streams);
+        return streams;
+    }
+
+    private static RobotIngestProperties properties(String consumer) {
+        RobotIngestProperties properties = new RobotIngestProperties();
+        properties.setRetryDelayMillis(50);
+        RobotIngestProperties.Stream cfg = properties.getStream();
+        cfg.setPartitions(2);
+        cfg.setConsumer(consumer);
+        cfg.setKeyPrefix("it:ingest:");
+        cfg.setLeasePrefix("it:ingest:lease:");
+        cfg.setNodesKey("it:ingest:nodes");
+        cfg.setDeadLetterKey("it:ingest:dead");
+        cfg.setLeaseTtl(Duration.ofMillis(900));
+        cfg.setPollTimeout(Duration.ofMillis(100));
+        cfg.setClaimIdle(Duration.ofMillis(500));
+        return properties;
+    }
+
+    private String envelope(String frameId) throws Exception {
+        LocationDTO location = new LocationDTO();
+        location.setZone(1);
+        location.setRow(1);
+        location.setShelf(1);
+
+        ScanResultDTO scan = new ScanResultDTO();
+        scan.setProductCode("TEL-4567");
+        scan.setProductName("Роутер");
+        scan.setQuantity(10);
+        scan.setStatusCode("OK");
+
+        RobotDataRequest request = new RobotDataRequest();
+        request.setCode("RB-0001");
+        request.setTimestamp(Instant.parse("2023-10-10T10:00:00Z"));
+        request.setLocation(location);
+        request.setScanResults(List.of(scan));
+        request.setFrameId(frameId);
+        return om.writeValueAsString(new IngestEnvelope(List.of(UUID.randomUUID()), request, Instant.now()));
+    }
+}
@@ -0,0 +1,137 @@
+package ru.rtc.warehouse.integration;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.rtc.warehouse.auth.controller.dto.request.RegisterRequest;
+import ru.rtc.warehouse.auth.util.JwtAuthenticationFilter;
+import ru.rtc.warehouse.user.model.Role;
+import ru.rtc.warehouse.user.model.User;
+import ru.rtc.warehouse.user.service.RoleService;
+import ru.rtc.warehouse.user.service.UserEntityService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Интеграционный тест режима {@code security.jwt.user-auth-mode=claims}: свежий токен аутентифицирует
+ * по своим claims без чтения users, а после изменения пользователя — снова по users.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "security.jwt.user-auth-mode=claims")
+@DisplayName("JwtAuthenticationFilter IT, режим claims (реальная БД, полный контекст)")
+class JwtClaimsAuthenticationIT {
+
+    private static final String EMAIL = "jwt_claims_it_user@example.com";
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired UserEntityService userEntityService;
+    @Autowired RoleService roleService;
+
+    // ───────────────────────────── утилиты логов ──────────────────────────────
+    private static void step(String title) {
+        System.out.println("\n" + "═".repeat(80));
+        System.out.println("▶ " + title);
+        System.out.println("═".repeat(80));
+    }
+    private static void ok(String s)   { System.out.println("  ✓ " + s); }
+
+    // ────────────────────────────── подготовка БД ─────────────────────────────
+    @BeforeEach
+    void seed() {
+        step("DB SEED: чистим users/refresh_tokens/roles и создаём роли VIEWER/MANAGER");
+
+        jdbc.update("""
+            TRUNCATE TABLE refresh_tokens, users, roles
+            RESTART IDENTITY CASCADE
+        """);
+        jdbc.update("INSERT INTO roles(code, is_deleted) VALUES ('VIEWER', false)");
+        jdbc.update("INSERT INTO roles(code, is_deleted) VALUES ('MANAGER', false)");
+        ok("Роли VIEWER и MANAGER вставлены");
+    }
+
+    // ────────────────────────────── тесты ─────────────────────────────────────
+
+    @Test
+    @DisplayName("свежий токен берёт роль из claims, после смены роли — из users")
+    void claims_are_trusted_until_user_changes() throws Exception {
+        step("REGISTER");
+        String access = register();
+        assertThat(authorities(access)).containsExactly("ROLE_VIEWER");
+        ok("Токен аутентифицирует с ролью VIEWER");
+
+        step("ROLE CHANGE в обход сервиса: события об изменении нет");
+        jdbc.update("UPDATE users SET role_id = (SELECT id FROM roles WHERE code = 'MANAGER') WHERE email = ?", EMAIL);
+        assertThat(authorities(access)).containsExactly("ROLE_VIEWER");
+        ok("Роль взята из claims токена, users не читается");
+
+        step("ROLE CHANGE через сервис: VIEWER → MANAGER");
+        User user = userEntityService.findByEmail(EMAIL);
+        user.setRole(roleService.findByCode(Role.RoleCode.MANAGER));
+        userEntityService.update(user);
+        assertThat(authorities(access)).containsExactly("ROLE_MANAGER");
+        ok("Токен выдан до изменения пользователя — роль взята из users");
+    }
+
+    private String register() throws Exception {
+        var regReq = new RegisterRequest(EMAIL, "p@ss-123", "JWT Claims IT User", null);
+        var regMvc = mvc.perform(post("/api/auth/register")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(regReq)))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Object> tokens = om.readValue(
+                regMvc.getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {});
+        return (String) tokens.get("accessToken");
+    }
+
+    private List<String> authorities(String access) throws Exception {
+        Authentication authentication = authenticate(access);
+        assertThat(authentication).as("токен аутентифицирует").isNotNull();
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    /**
+     * Прогоняет запрос с токеном через фильтр и возвращает установленную им аутентификацию.
+     */
+    private Authentication authenticate(String access) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/warehouses");
+        request.addHeader("Authorization", "Bearer " + access);
+        AtomicReference<Authentication> captured = new AtomicReference<>();
+        try {
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(),
+                    (req, res) -> captured.set(SecurityContextHolder.getContext().getAuthentication()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return captured.get();
+    }
+}
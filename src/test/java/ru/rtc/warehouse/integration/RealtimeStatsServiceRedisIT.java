@@ -17,6 +17,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.within;
@@ -97,13 +98,20 @@ class RealtimeStatsServiceRedisIT {
         rt.opsForValue().set(RealtimeRedisKeys.checkedToday(CODE, LocalDate.now(zone)), "345");
         ok("battery/checkedToday посеяны");
 
-        step("SEED: поминутная активность для m0 и m1");
-        long e0 = RealtimeRedisKeys.epochMinute(m0);
-        long e1 = RealtimeRedisKeys.epochMinute(m1);
-        rt.opsForValue().set(RealtimeRedisKeys.activityMinute(CODE, e0), "10");
-        rt.opsForValue().set(RealtimeRedisKeys.activityMinute(CODE, e1), "12");
-        note("m0=" + m0 + " → 10;  m1=" + m1 + " → 12");
-        ok("minute-series посеяны");
+        step("SEED: кольцо активности для m0, m1 и устаревший слот (минута часом раньше mStale)");
+        LocalDateTime mStale = toMinute.minusMinutes(5);
+        long n0 = RealtimeRedisKeys.minuteNumber(m0);
+        long n1 = RealtimeRedisKeys.minuteNumber(m1);
+        long nOld = RealtimeRedisKeys.minuteNumber(mStale) - RealtimeRedisKeys.ACTIVITY_SLOTS;
+        rt.opsForHash().putAll(RealtimeRedisKeys.activityRing(CODE), Map.of(
+                RealtimeRedisKeys.activitySlotMinuteField(n0), String.valueOf(n0),
+                RealtimeRedisKeys.activitySlotCountField(n0), "10",
+                RealtimeRedisKeys.activitySlotMinuteField(n1), String.valueOf(n1),
+                RealtimeRedisKeys.activitySlotCountField(n1), "12",
+                RealtimeRedisKeys.activitySlotMinuteField(nOld), String.valueOf(nOld),
+                RealtimeRedisKeys.activitySlotCountField(nOld), "99"));
+        note("m0=" + m0 + " → 10;  m1=" + m1 + " → 12;  слот " + mStale + " хранит минуту часом раньше → 0");
+        ok("кольцо активности посеяно");
 
         step("ACT: вызов getStats");
         RealtimeStatsDTO dto = service.getStats(CODE);
@@ -130,6 +138,13 @@ class RealtimeStatsServiceRedisIT {
 
         assertThat(atM0.getCount()).isEqualTo(10);
         assertThat(atM1.getCount()).isEqualTo(12);
+        assertThat(dto.getActivitySeries().stream()
+                .filter(p -> mStale.equals(p.getTs()))
+                .findFirst()
+                .orElseThrow()
+                .getCount())
+                .as("слот с минутой прошлого часа не попадает в серию")
+                .isZero();
         ok("Значения на последних минутах считываются корректно (без хрупких индексов)");
     }
 
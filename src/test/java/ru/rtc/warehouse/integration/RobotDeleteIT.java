@@ -0,0 +1,92 @@
+package ru.rtc.warehouse.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache;
+import ru.rtc.warehouse.auth.cache.RobotTokenCache.RobotPrincipal;
+import ru.rtc.warehouse.robot.cache.RobotLiveStateStore;
+import ru.rtc.warehouse.robot.model.RobotStatus.StatusCode;
+import ru.rtc.warehouse.robot.service.RobotService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционный тест удаления робота, у которого есть токен (реальная БД, полный контекст).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("RobotService.delete IT (реальная БД, полный контекст)")
+class RobotDeleteIT {
+
+    private static final String ROBOT_CODE = "RB-DEL-1";
+    private static final String TOKEN = "robot-delete-it-token";
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired RobotService robotService;
+    @Autowired RobotTokenCache robotTokenCache;
+    @Autowired RobotLiveStateStore robotLiveStateStore;
+
+    private Long robotId;
+
+    // ───────────────────────────── утилиты логов ──────────────────────────────
+    private static void step(String title) {
+        System.out.println("\n" + "═".repeat(80));
+        System.out.println("▶ " + title);
+        System.out.println("═".repeat(80));
+    }
+    private static void ok(String s)   { System.out.println("  ✓ " + s); }
+
+    // ────────────────────────────── подготовка БД ─────────────────────────────
+    @BeforeEach
+    void seed() {
+        step("DB SEED: склад, робот и его токен");
+
+        jdbc.update("""
+            TRUNCATE TABLE robot_tokens, robots, warehouses
+            RESTART IDENTITY CASCADE
+        """);
+        jdbc.update("""
+            INSERT INTO warehouses(code, name, zone_max_size, row_max_size, shelf_max_size, location, is_deleted)
+            VALUES ('WH-DEL-IT','Main',1,1,1,'',false)
+        """);
+        Long warehouseId = jdbc.queryForObject("SELECT id FROM warehouses WHERE code='WH-DEL-IT'", Long.class);
+        jdbc.update("INSERT INTO robots(warehouse_id, robot_code, battery_level, is_deleted) VALUES (?,?,100,false)",
+                warehouseId, ROBOT_CODE);
+        robotId = jdbc.queryForObject("SELECT id FROM robots WHERE robot_code=?", Long.class, ROBOT_CODE);
+        jdbc.update("INSERT INTO robot_tokens(robot_id, token, revoked) VALUES (?,?,false)", robotId, TOKEN);
+        ok("Робот " + ROBOT_CODE + " с токеном вставлен");
+    }
+
+    // ────────────────────────────── тесты ─────────────────────────────────────
+
+    @Test
+    @DisplayName("удаление робота удаляет его токены, сбрасывает кэш токенов и оперативное состояние")
+    void delete_robot_with_token() {
+        step("PREPARE: токен в кэше, у робота есть оперативное состояние");
+        RobotPrincipal principal = new RobotPrincipal(ROBOT_CODE,
+                List.of(new SimpleGrantedAuthority("ROLE_ROBOT")), null);
+        assertThat(robotTokenCache.get(TOKEN, () -> principal)).isEqualTo(principal);
+        robotLiveStateStore.recordHeartbeat(ROBOT_CODE, StatusCode.WORKING, 80, LocalDateTime.now());
+        assertThat(robotLiveStateStore.find(ROBOT_CODE)).isPresent();
+
+        step("DELETE");
+        robotService.delete(robotId);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM robots", Integer.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM robot_tokens", Integer.class)).isZero();
+        ok("Робот и его токен удалены");
+
+        assertThat(robotTokenCache.get(TOKEN, () -> null)).as("токен вытеснен из кэша").isNull();
+        assertThat(robotLiveStateStore.find(ROBOT_CODE)).as("оперативное состояние сброшено").isEmpty();
+        ok("Кэш токенов и оперативное состояние сброшены после коммита");
+    }
+}
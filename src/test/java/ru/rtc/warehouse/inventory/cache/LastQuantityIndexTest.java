@@ -0,0 +1,134 @@
+package ru.rtc.warehouse.inventory.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.rtc.warehouse.inventory.cache.LastQuantityIndex.Snapshot;
+import ru.rtc.warehouse.inventory.events.InventoryHistoryChangedEvent;
+import ru.rtc.warehouse.robot.events.RobotFrameAppliedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LastQuantityIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2023, 10, 10, 10, 0);
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+    private final LastQuantityIndex index = context.getBean(LastQuantityIndex.class);
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void frameIsRecordedOnlyAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            context.publishEvent(frame(5, T0.plusMinutes(1)));
+            // до коммита индекс отдаёт количество из БД
+            assertEquals(10, lastQuantity());
+        });
+
+        assertEquals(5, lastQuantity());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void rolledBackFrameIsNotRecorded() {
+        transactionTemplate.executeWithoutResult(status -> {
+            context.publishEvent(frame(5, T0.plusMinutes(1)));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(10, lastQuantity());
+    }
+
+    @Test
+    void olderScanDoesNotOverwriteNewer() {
+        index.onFrameApplied(frame(5, T0.plusMinutes(2)));
+        index.onFrameApplied(frame(3, T0.plusMinutes(1)));
+
+        assertEquals(5, lastQuantity());
+        // снимок уже в индексе — запроса в БД нет
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void historyChangeInvalidatesWarehouseOnlyAfterCommit() {
+        index.onFrameApplied(frame(5, T0.plusMinutes(1)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            context.publishEvent(new InventoryHistoryChangedEvent(this, 1L));
+            // до коммита сброса нет — снимок не перезагружается из незакоммиченной БД
+            assertEquals(5, lastQuantity());
+            assertEquals(0, loads.get());
+        });
+
+        assertEquals(10, lastQuantity());
+        assertEquals(1, loads.get());
+    }
+
+    private Integer lastQuantity() {
+        return index.get(1L, 3L, 7L, () -> {
+            loads.incrementAndGet();
+            return new Snapshot(10, T0);
+        }).quantity();
+    }
+
+    private static RobotFrameAppliedEvent frame(int quantity, LocalDateTime scannedAt) {
+        RobotFrameAppliedEvent.Item item = new RobotFrameAppliedEvent.Item(7L, "TEL-4567", "Роутер",
+                quantity, 10, quantity - 10, "OK", null);
+        return new RobotFrameAppliedEvent(LastQuantityIndexTest.class, "RB-0001", 1L, "WH-1", 3L,
+                1, 1, 1, 0, 85, null, scannedAt, List.of(item), List.of());
+    }
+
+    /**
+     * Индекс и транзакции без БД: менеджер транзакций только ведёт синхронизации, как настоящий.
+     */
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        LastQuantityIndex lastQuantityIndex() {
+            return new LastQuantityIndex(1_000);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
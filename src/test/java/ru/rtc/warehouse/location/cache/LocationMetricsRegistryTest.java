@@ -0,0 +1,92 @@
+package ru.rtc.warehouse.location.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.rtc.warehouse.config.LocationProperties;
+import ru.rtc.warehouse.inventory.repository.InventoryHistoryRepository;
+import ru.rtc.warehouse.location.dto.LocationMetricsDTO;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LocationMetricsRegistryTest {
+
+    private static final long WAREHOUSE = 1L;
+    private static final long LOCATION = 3L;
+
+    private final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+
+    private final InventoryHistoryRepository historyRepository = mock(InventoryHistoryRepository.class);
+    private final LocationMetricsRegistry registry = new LocationMetricsRegistry(historyRepository,
+            new LocationProperties(), mock(LocationGridIndex.class), mock(PlatformTransactionManager.class));
+
+    @Test
+    void scansOfOneHourAddUpAndScansOlderThanADayDropOut() {
+        hydrateWith(0, List.of(), List.of());
+
+        record(1, now.minusMinutes(20), 2);
+        record(2, now.minusMinutes(10), 3);
+        // корзина часа суточной давности уже вне окна — скан в счётчик за сутки не попадает
+        record(3, now.minusHours(24), 4);
+
+        LocationMetricsDTO metrics = snapshot();
+        assertEquals(5, metrics.getScansCount24h());
+        assertEquals(now.minusMinutes(10), metrics.getLastScannedAt());
+        assertEquals("RECENT", metrics.getStatus());
+    }
+
+    @Test
+    void averageIntervalUsesRecentDistinctScans() {
+        hydrateWith(0, List.of(), List.of());
+
+        record(1, now.minusMinutes(40), 1);
+        record(2, now.minusMinutes(20), 1);
+        // повтор того же момента скана интервал не меняет
+        record(3, now.minusMinutes(20), 1);
+        record(4, now.minusMinutes(10), 1);
+
+        assertEquals(15.0, snapshot().getAvgIntervalMinutes());
+    }
+
+    @Test
+    void framesAlreadyLoadedByHydrationAreSkipped() {
+        long hour = Math.floorDiv(now.minusMinutes(30).toEpochSecond(ZoneOffset.UTC), 3600);
+        hydrateWith(100,
+                List.<Object[]>of(new Object[]{LOCATION, hour, 3}),
+                List.<Object[]>of(new Object[]{LOCATION, Timestamp.valueOf(now.minusMinutes(30))}));
+
+        // кадр закоммичен до загрузки, а его событие пришло после — он уже в снимке
+        record(100, now.minusMinutes(30), 1);
+        assertEquals(3, snapshot().getScansCount24h());
+
+        // кадр со старым временем скана, но записанный после загрузки, учитывается
+        record(101, now.minusMinutes(45), 2);
+        LocationMetricsDTO metrics = snapshot();
+        assertEquals(5, metrics.getScansCount24h());
+        assertEquals(now.minusMinutes(30), metrics.getLastScannedAt());
+        verify(historyRepository, times(1)).findMaxId();
+    }
+
+    private void hydrateWith(long maxId, List<Object[]> hourly, List<Object[]> recent) {
+        when(historyRepository.findMaxId()).thenReturn(maxId);
+        when(historyRepository.countHourlyScansByLocation(eq(WAREHOUSE), any(LocalDateTime.class))).thenReturn(hourly);
+        when(historyRepository.findRecentScanTimesByLocation(eq(WAREHOUSE), anyInt())).thenReturn(recent);
+    }
+
+    private void record(long historyId, LocalDateTime scannedAt, int scans) {
+        registry.record(WAREHOUSE, LOCATION, scannedAt, scans, List.of(historyId));
+    }
+
+    private LocationMetricsDTO snapshot() {
+        return registry.snapshot(WAREHOUSE, "WH-1", LOCATION, 1, 1, 1);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.rtc.warehouse.robot.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstIsAdmittedThenRateLimited() {
+        TokenBucket bucket = new TokenBucket(2, 3);
+        long now = 10 * SECOND;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+
+        // корзина пуста: следующий токен появится через интервал пополнения (0.5 с)
+        assertEquals(SECOND / 2, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 2));
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToBurst() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        long now = 10 * SECOND;
+        bucket.tryAcquire(now);
+
+        long later = now + 60 * SECOND;
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    void refundedTokenCanBeAcquiredAgain() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = 10 * SECOND;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now) > 0);
+
+        bucket.refund();
+        assertEquals(0, bucket.tryAcquire(now));
+    }
+}
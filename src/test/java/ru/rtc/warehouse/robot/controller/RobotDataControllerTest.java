@@ -11,7 +11,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
-import ru.rtc.warehouse.robot.service.RobotDataService;
+import ru.rtc.warehouse.robot.service.RobotBulkIngestService;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -39,7 +40,10 @@ class RobotDataControllerTest {
     private MockMvc mockMvc;
 
     @MockBean
-    private RobotDataService robotDataService;
+    private RobotIngestService robotIngestService;
+
+    @MockBean
+    private RobotBulkIngestService robotBulkIngestService;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -67,7 +71,7 @@ class RobotDataControllerTest {
         UUID msgId = UUID.randomUUID();
         List<UUID> msgIds = new ArrayList();
         msgIds.add(msgId);
-        when(robotDataService.processRobotData(any())).thenReturn(new RobotDataResponse("received", msgIds));
+        when(robotIngestService.accept(any())).thenReturn(new RobotDataResponse("received", msgIds));
 
         String json = objectMapper.writeValueAsString(request);
 
@@ -79,7 +83,7 @@ class RobotDataControllerTest {
                 .andExpect(jsonPath("$.status").value("received"))
                 .andExpect(jsonPath("$.messageId").exists());
 
-        verify(robotDataService, times(1)).processRobotData(any());
+        verify(robotIngestService, times(1)).accept(any());
     }
 
     @Test
@@ -101,6 +105,6 @@ class RobotDataControllerTest {
                         .content(json))
                 .andExpect(status().isBadRequest());
 
-        verify(robotDataService, never()).processRobotData(any());
+        verify(robotIngestService, never()).accept(any());
     }
 }
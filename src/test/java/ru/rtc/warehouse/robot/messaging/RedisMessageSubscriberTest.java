@@ -11,6 +11,7 @@ import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import ru.rtc.warehouse.config.RobotProperties;
 import ru.rtc.warehouse.config.messaging.RedisMessageSubscriber;
+import ru.rtc.warehouse.config.messaging.RobotChannelCodec;
 import ru.rtc.warehouse.config.service.adapter.RobotEntityAdapter;
 import ru.rtc.warehouse.config.service.adapter.impl.RobotEntityAdapterImpl;
 import ru.rtc.warehouse.robot.model.Robot;
@@ -18,6 +19,7 @@ import ru.rtc.warehouse.warehouse.model.Warehouse;
 import ru.rtc.warehouse.robot.repository.RobotRepository;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,7 +48,8 @@ class RedisMessageSubscriberTest {
         robotRepository = mock(RobotRepository.class);
         redisTemplate = mock(StringRedisTemplate.class);
         robotEntityAdapter = mock(RobotEntityAdapterImpl.class);
-        subscriber = new RedisMessageSubscriber(messagingTemplate, robotProperties, objectMapper, robotEntityAdapter, redisTemplate);
+        subscriber = new RedisMessageSubscriber(messagingTemplate, robotProperties, robotEntityAdapter, redisTemplate,
+                new RobotChannelCodec(objectMapper, robotProperties));
     }
 
     @Test
@@ -102,4 +105,42 @@ class RedisMessageSubscriberTest {
         verify(messagingTemplate).convertAndSend(eq("/topic/dashboard/warehouse/WH-02"), any(Object.class));
         verify(robotRepository, never()).findByCode(any());// no DB lookup
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenLocationBatchUpdate_thenPublishToGlobalAndWarehouseLocationsTopics() throws Exception {
+        robotProperties.setWsGlobalLocationsTopic("/topic/dashboard/locations");
+        robotProperties.setWsWarehouseLocationsTopicPrefix("/topic/dashboard/warehouse");
+        String json = "{\"type\":\"location_batch_update\",\"data\":{\"warehouseCode\":\"WH-03\","
+                + "\"locations\":[{\"zone\":1,\"row\":2,\"shelf\":3,\"status\":\"RECENT\"}]}}";
+
+        Message msg = mock(Message.class);
+        when(msg.getBody()).thenReturn(json.getBytes(StandardCharsets.UTF_8));
+
+        subscriber.onMessage(msg, null);
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/dashboard/locations"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/dashboard/warehouse/WH-03/locations"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/dashboard"), any(Object.class));
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    void whenCborEncodedMessage_thenDecodedLikeJson() throws Exception {
+        robotProperties.setRedisChannelEncoding(RobotProperties.ChannelEncoding.CBOR);
+        byte[] cbor = new RobotChannelCodec(objectMapper, robotProperties).encode(
+                Map.of("type", "robot_update", "data", Map.of("robot_id", "RB-004", "battery_level", 70)));
+        assertNotEquals('{', cbor[0]);
+
+        Message msg = mock(Message.class);
+        when(msg.getBody()).thenReturn(cbor);
+
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("robot:RB-004:warehouse")).thenReturn("WH-04");
+
+        subscriber.onMessage(msg, null);
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/dashboard/robot/RB-004"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/dashboard/warehouse/WH-04"), any(Object.class));
+    }
+}
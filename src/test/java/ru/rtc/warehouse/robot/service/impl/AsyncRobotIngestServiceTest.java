@@ -0,0 +1,105 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.mock.env.MockEnvironment;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.location.dto.LocationDTO;
+import ru.rtc.warehouse.robot.controller.dto.ScanResultDTO;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.ingest.IngestLanes;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.RecentFrameRegistry;
+import ru.rtc.warehouse.robot.service.RobotDataService;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AsyncRobotIngestServiceTest {
+
+    @TempDir
+    Path journalDir;
+
+    private AsyncRobotIngestService service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void retriedAndOverflowedFramesKeepPartitionOrder() throws Exception {
+        // одна полоса с очередью на один кадр: остальные кадры попадают в очередь переполнения
+        RobotIngestProperties properties = new RobotIngestProperties();
+        properties.setPartitions(1);
+        properties.setPartitionQueueCapacity(1);
+        properties.setRetryDelayMillis(20);
+        properties.getJournal().setDirectory(journalDir.toString());
+        properties.getJournal().setFsync(false);
+
+        List<String> applied = new CopyOnWriteArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        RobotDataService robotDataService = mock(RobotDataService.class);
+        when(robotDataService.processRobotData(any(RobotDataRequest.class), anyList())).thenAnswer(inv -> {
+            String frameId = inv.getArgument(0, RobotDataRequest.class).getFrameId();
+            applied.add(frameId);
+            // первый кадр падает один раз с временной ошибкой
+            if (frameId.equals("f-1") && failed.compareAndSet(false, true)) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+            return null;
+        });
+
+        service = new AsyncRobotIngestService(properties, robotDataService, new ObjectMapper().findAndRegisterModules(),
+                new RecentFrameRegistry(properties), new IngestLanes(properties, new MockEnvironment()),
+                mock(IngestPartitioner.class));
+        service.init();
+
+        for (int i = 1; i <= 5; i++) {
+            assertEquals("accepted", service.accept(frame("f-" + i)).getStatus());
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.backlog() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, service.backlog());
+        // повтор выполняется на месте: следующие кадры партиции не обгоняют f-1
+        assertEquals(List.of("f-1", "f-1", "f-2", "f-3", "f-4", "f-5"), applied);
+    }
+
+    private static RobotDataRequest frame(String frameId) {
+        LocationDTO location = new LocationDTO();
+        location.setZone(1);
+        location.setRow(1);
+        location.setShelf(1);
+
+        ScanResultDTO scan = new ScanResultDTO();
+        scan.setProductCode("TEL-4567");
+        scan.setProductName("Роутер");
+        scan.setQuantity(10);
+        scan.setStatusCode("OK");
+
+        RobotDataRequest request = new RobotDataRequest();
+        request.setCode("RB-0001");
+        request.setTimestamp(Instant.parse("2023-10-10T10:00:00Z"));
+        request.setLocation(location);
+        request.setScanResults(List.of(scan));
+        request.setFrameId(frameId);
+        return request;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.Validator;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse.FrameResult;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.service.RobotIngestService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RobotBulkIngestServiceImplTest {
+
+    private static final String FRAME = "{\"code\":\"%s\",\"timestamp\":\"2023-10-10T10:00:00Z\","
+            + "\"location\":{\"zone\":1,\"row\":1,\"shelf\":1},"
+            + "\"scanResults\":[{\"productCode\":\"TEL-4567\",\"productName\":\"Роутер\",\"quantity\":10,\"statusCode\":\"OK\"}],"
+            + "\"batteryLevel\":85,\"nextCheckpoint\":\"1-2-3\"}";
+
+    private final RobotIngestService ingestService = mock(RobotIngestService.class);
+
+    private RobotBulkIngestServiceImpl service(int chunkSize) {
+        RobotIngestProperties properties = new RobotIngestProperties();
+        properties.setBulkChunkSize(chunkSize);
+        return new RobotBulkIngestServiceImpl(ingestService, properties,
+                new ObjectMapper().findAndRegisterModules(), mock(Validator.class));
+    }
+
+    @Test
+    void framesAreStreamedInChunksWithPerFrameResults() throws Exception {
+        when(ingestService.acceptAll(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).stream()
+                .map(f -> FrameResult.of(new RobotDataResponse("received", List.of(UUID.randomUUID()))))
+                .toList());
+
+        String body = String.join("\n",
+                FRAME.formatted("RB-0001"),
+                FRAME.formatted("RB-0002"),
+                FRAME.formatted("RB-0001"),
+                FRAME.formatted("RB-0001"));
+
+        RobotBulkDataResponse response = service(2).ingest(bytes(body), "RB-0001");
+
+        assertEquals(3, response.getReceived());
+        assertEquals(1, response.getFailed());
+        assertEquals(List.of("received", "forbidden", "received", "received"),
+                response.getResults().stream().map(FrameResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3), response.getResults().stream().map(FrameResult::getIndex).toList());
+        // 3 допустимых кадра при пачке из 2 — два вызова
+        verify(ingestService, times(2)).acceptAll(anyList());
+    }
+
+    @Test
+    void malformedLineStopsParsingButKeepsEarlierFrames() throws Exception {
+        when(ingestService.acceptAll(anyList())).thenReturn(
+                List.of(FrameResult.of(new RobotDataResponse("received", List.of(UUID.randomUUID())))));
+
+        String body = FRAME.formatted("RB-0001") + "\n{\"code\": broken\n" + FRAME.formatted("RB-0001");
+
+        RobotBulkDataResponse response = service(100).ingest(bytes(body), "RB-0001");
+
+        assertEquals(List.of("received", "invalid"),
+                response.getResults().stream().map(FrameResult::getStatus).toList());
+    }
+
+    private static ByteArrayInputStream bytes(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
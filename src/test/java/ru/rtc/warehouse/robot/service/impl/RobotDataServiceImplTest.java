@@ -0,0 +1,80 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.rtc.warehouse.inventory.mapper.InventoryStatusReferenceMapper;
+import ru.rtc.warehouse.inventory.service.InventoryHistoryEntityService;
+import ru.rtc.warehouse.location.dto.LocationDTO;
+import ru.rtc.warehouse.robot.controller.dto.ScanResultDTO;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotDataResponse;
+import ru.rtc.warehouse.robot.model.IngestedFrame;
+import ru.rtc.warehouse.robot.repository.IngestedFrameRepository;
+import ru.rtc.warehouse.robot.service.RobotEntityService;
+import ru.rtc.warehouse.robot.service.adapter.InventoryHistoryAdapter;
+import ru.rtc.warehouse.robot.service.adapter.LocationAdapter;
+import ru.rtc.warehouse.robot.service.adapter.ProductAdapter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RobotDataServiceImplTest {
+
+    private final RobotEntityService robots = mock(RobotEntityService.class);
+    private final InventoryHistoryEntityService historyService = mock(InventoryHistoryEntityService.class);
+    private final IngestedFrameRepository frames = mock(IngestedFrameRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final RobotDataServiceImpl service = new RobotDataServiceImpl(robots, historyService,
+            mock(InventoryHistoryAdapter.class), mock(LocationAdapter.class), mock(ProductAdapter.class),
+            frames, mock(InventoryStatusReferenceMapper.class), eventPublisher);
+
+    @Test
+    void duplicateFrameReturnsOriginalMessageIdsAndWritesNothing() {
+        List<UUID> original = List.of(UUID.randomUUID());
+        when(frames.findByRobotCodeAndFrameId("RB-0001", "f-1")).thenReturn(Optional.of(IngestedFrame.builder()
+                .robotCode("RB-0001")
+                .frameId("f-1")
+                .messageIds(original.toArray(UUID[]::new))
+                .createdAt(LocalDateTime.now())
+                .build()));
+
+        RobotDataResponse response = service.processRobotData(frame("f-1"));
+
+        assertEquals("duplicate", response.getStatus());
+        assertEquals(original, response.getMessageId());
+        // ни истории, ни записи кадра, ни события — кадр уже применён
+        verify(historyService, never()).saveAll(anyList());
+        verify(frames, never()).save(any());
+        verifyNoInteractions(robots, eventPublisher);
+    }
+
+    private static RobotDataRequest frame(String frameId) {
+        LocationDTO location = new LocationDTO();
+        location.setZone(1);
+        location.setRow(1);
+        location.setShelf(1);
+
+        ScanResultDTO scan = new ScanResultDTO();
+        scan.setProductCode("TEL-4567");
+        scan.setProductName("Роутер");
+        scan.setQuantity(10);
+        scan.setStatusCode("OK");
+
+        RobotDataRequest request = new RobotDataRequest();
+        request.setCode("RB-0001");
+        request.setTimestamp(Instant.parse("2023-10-10T10:00:00Z"));
+        request.setLocation(location);
+        request.setScanResults(List.of(scan));
+        request.setFrameId(frameId);
+        return request;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.rtc.warehouse.robot.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.rtc.warehouse.config.RobotIngestProperties;
+import ru.rtc.warehouse.inventory.mapper.InventoryStatusReferenceMapper;
+import ru.rtc.warehouse.inventory.model.InventoryHistory;
+import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus;
+import ru.rtc.warehouse.inventory.model.InventoryHistoryStatus.InventoryHistoryStatusCode;
+import ru.rtc.warehouse.inventory.service.InventoryHistoryEntityService;
+import ru.rtc.warehouse.location.dto.LocationDTO;
+import ru.rtc.warehouse.location.model.Location;
+import ru.rtc.warehouse.product.model.Product;
+import ru.rtc.warehouse.robot.controller.dto.ScanResultDTO;
+import ru.rtc.warehouse.robot.controller.dto.request.RobotDataRequest;
+import ru.rtc.warehouse.robot.controller.dto.response.RobotBulkDataResponse.FrameResult;
+import ru.rtc.warehouse.robot.ingest.IngestLanes;
+import ru.rtc.warehouse.robot.ingest.IngestPartitioner;
+import ru.rtc.warehouse.robot.ingest.RecentFrameRegistry;
+import ru.rtc.warehouse.robot.model.Robot;
+import ru.rtc.warehouse.robot.repository.IngestedFrameRepository;
+import ru.rtc.warehouse.robot.service.RobotEntityService;
+import ru.rtc.warehouse.robot.service.adapter.InventoryHistoryAdapter;
+import ru.rtc.warehouse.robot.service.adapter.LocationAdapter;
+import ru.rtc.warehouse.robot.service.adapter.ProductAdapter;
+import ru.rtc.warehouse.warehouse.model.Warehouse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SyncRobotIngestServiceTest {
+
+    private final Warehouse warehouse = Warehouse.builder()
+            .id(1L).code("WH-1").zoneMaxSize(10).rowMaxSize(10).shelfMaxSize(10).build();
+    private final Robot robot = Robot.builder().id(1L).code("RB-0001").warehouse(warehouse).build();
+    private final Product product = Product.builder().id(7L).code("TEL-4567").name("Роутер").build();
+
+    private final InventoryHistoryEntityService historyService = mock(InventoryHistoryEntityService.class);
+    private final InventoryHistoryAdapter historyAdapter = mock(InventoryHistoryAdapter.class);
+
+    private SyncRobotIngestService service() {
+        Location location = new Location();
+        location.setId(3L);
+        location.setZone(1);
+        location.setRow(1);
+        location.setShelf(1);
+        location.setWarehouse(warehouse);
+
+        RobotEntityService robots = mock(RobotEntityService.class);
+        when(robots.findByCode("RB-0001")).thenReturn(robot);
+        LocationAdapter locations = mock(LocationAdapter.class);
+        when(locations.findByWarehouseAndZoneAndRowAndShelf(warehouse, 1, 1, 1)).thenReturn(Optional.of(location));
+        ProductAdapter products = mock(ProductAdapter.class);
+        when(products.resolveForScan("TEL-4567", warehouse)).thenReturn(Optional.of(product));
+        InventoryStatusReferenceMapper statuses = mock(InventoryStatusReferenceMapper.class);
+        when(statuses.mapStringToInventoryStatus(anyString())).thenReturn(
+                InventoryHistoryStatus.builder().id(1L).code(InventoryHistoryStatusCode.OK).build());
+
+        RobotDataServiceImpl dataService = new RobotDataServiceImpl(robots, historyService, historyAdapter,
+                locations, products, mock(IngestedFrameRepository.class), statuses,
+                mock(ApplicationEventPublisher.class));
+
+        // транзакция и полоса выполняются в потоке теста
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        IngestLanes lanes = mock(IngestLanes.class);
+        when(lanes.submit(anyInt(), any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(((Supplier<?>) inv.getArgument(1)).get()));
+        IngestPartitioner partitioner = mock(IngestPartitioner.class);
+
+        return new SyncRobotIngestService(dataService, new RecentFrameRegistry(new RobotIngestProperties()),
+                transactionTemplate, lanes, partitioner);
+    }
+
+    @Test
+    void framesOfOneChunkCompareWithPreviousFrameOfTheChunk() {
+        // в кэше последних количеств — состояние до пачки: он обновляется только после коммита
+        when(historyAdapter.findLatestQuantity(eq(product), any(Location.class), eq(warehouse)))
+                .thenReturn(Optional.of(10));
+
+        List<FrameResult> results = service().acceptAll(List.of(frame("f-1", 7), frame("f-2", 4)));
+
+        assertEquals(List.of("received", "received"), results.stream().map(FrameResult::getStatus).toList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryHistory>> saved = ArgumentCaptor.forClass(List.class);
+        verify(historyService, times(2)).saveAll(saved.capture());
+        InventoryHistory first = saved.getAllValues().get(0).get(0);
+        InventoryHistory second = saved.getAllValues().get(1).get(0);
+
+        assertEquals(10, first.getExpectedQuantity());
+        assertEquals(-3, first.getDifference());
+        // второй кадр сравнивается с первым кадром пачки, а не с закоммиченным количеством
+        assertEquals(7, second.getExpectedQuantity());
+        assertEquals(-3, second.getDifference());
+    }
+
+    private static RobotDataRequest frame(String frameId, int quantity) {
+        LocationDTO location = new LocationDTO();
+        location.setZone(1);
+        location.setRow(1);
+        location.setShelf(1);
+
+        ScanResultDTO scan = new ScanResultDTO();
+        scan.setProductCode("TEL-4567");
+        scan.setProductName("Роутер");
+        scan.setQuantity(quantity);
+        scan.setStatusCode("OK");
+
+        RobotDataRequest request = new RobotDataRequest();
+        request.setCode("RB-0001");
+        request.setTimestamp(Instant.parse("2023-10-10T10:00:00Z"));
+        request.setLocation(location);
+        request.setScanResults(List.of(scan));
+        request.setBatteryLevel(85);
+        request.setNextCheckpoint("1-2-3");
+        request.setFrameId(frameId);
+        return request;
+    }
+}